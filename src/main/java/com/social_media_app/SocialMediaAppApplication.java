@@ -2,8 +2,10 @@ package com.social_media_app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SocialMediaAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(SocialMediaAppApplication.class, args);
@@ -1,28 +1,81 @@
 package com.social_media_app.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.net.URI;
+
+/** S3 clients, only created when S3 is the media store ({@code media.store.type=s3}, the default) */
 @Configuration
+@ConditionalOnProperty(name = "media.store.type", havingValue = "s3", matchIfMissing = true)
 public class AwsConfig {
+    /** Shared by the clients, and by {@code S3StorageService} to know when signed URLs stop working */
+    @Bean
+    AwsCredentialsProvider awsCredentialsProvider() {
+        return DefaultCredentialsProvider.create();
+    }
+
+    /**
+     * {@code cloud.aws.http-client=url-connection} swaps the default Apache client, whose connection
+     * pool synchronizes and pins carrier threads, for the JDK client that uses locks on Java 21+.
+     */
+    @Bean
+    S3Client s3Client(AwsCredentialsProvider credentials,
+                      @Value("${cloud.aws.region}") String region,
+                      @Value("${cloud.aws.http-client:apache}") String httpClient,
+                      @Value("${cloud.aws.s3.endpoint:}") String endpoint,
+                      @Value("${cloud.aws.s3.path-style:false}") boolean pathStyle) {
+        var builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if ("url-connection".equals(httpClient)) {
+            builder.httpClientBuilder(UrlConnectionHttpClient.builder());
+        }
+        return builder.build();
+    }
+
+    /** Non-blocking client for {@code S3StorageService.uploadAsync}; parts go out concurrently over Netty */
     @Bean
-    S3Client s3Client(@Value("${cloud.aws.region}") String region) {
-        return S3Client.builder()
+    S3AsyncClient s3AsyncClient(AwsCredentialsProvider credentials,
+                                @Value("${cloud.aws.region}") String region,
+                                @Value("${cloud.aws.s3.endpoint:}") String endpoint,
+                                @Value("${cloud.aws.s3.path-style:false}") boolean pathStyle) {
+        var builder = S3AsyncClient.builder()
                 .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .credentialsProvider(credentials)
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
     }
 
     @Bean
-    S3Presigner s3Presigner(@Value("${cloud.aws.region}") String region) {
-        return S3Presigner.builder()
+    S3Presigner s3Presigner(AwsCredentialsProvider credentials,
+                            @Value("${cloud.aws.region}") String region,
+                            @Value("${cloud.aws.s3.endpoint:}") String endpoint,
+                            @Value("${cloud.aws.s3.path-style:false}") boolean pathStyle) {
+        var builder = S3Presigner.builder()
                 .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .credentialsProvider(credentials)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
     }
 }
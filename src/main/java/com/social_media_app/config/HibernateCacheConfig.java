@@ -0,0 +1,69 @@
+package com.social_media_app.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.social_media_app.model.Post;
+import com.social_media_app.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: {@link User} (by id and by username) and {@link Post} are kept in
+ * in-process Caffeine caches behind the JCache region factory. Every region is created here with its own
+ * size bound and TTL ({@code entity-cache.*}); Hibernate is told to fail rather than create an unbounded
+ * one for anything else. Hit/miss counters are published as {@code cache.gets{cache=<region>}}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(MeterRegistry registry,
+                                       @Value("${entity-cache.users.max-size:10000}") long usersMaxSize,
+                                       @Value("${entity-cache.users.ttl-sec:600}") long usersTtlSec,
+                                       @Value("${entity-cache.users-by-username.max-size:10000}") long usernamesMaxSize,
+                                       @Value("${entity-cache.users-by-username.ttl-sec:600}") long usernamesTtlSec,
+                                       @Value("${entity-cache.posts.max-size:50000}") long postsMaxSize,
+                                       @Value("${entity-cache.posts.ttl-sec:300}") long postsTtlSec) {
+        // a manager of its own per context, so test contexts with separate databases never share entries
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("social-media-app:hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+        region(manager, registry, User.CACHE_REGION, usersMaxSize, usersTtlSec);
+        region(manager, registry, User.NATURAL_ID_CACHE_REGION, usernamesMaxSize, usernamesTtlSec);
+        region(manager, registry, Post.CACHE_REGION, postsMaxSize, postsTtlSec);
+        return manager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer hibernateCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, JCacheRegionFactory.class.getName());
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void region(CacheManager manager, MeterRegistry registry, String name, long maxSize, long ttlSec) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        config.setMaximumSize(OptionalLong.of(maxSize));
+        config.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(ttlSec).toNanos()));
+        // Hibernate already stores disassembled state, copying it again on every access buys nothing
+        config.setStoreByValue(false);
+        config.setStatisticsEnabled(true);
+        JCacheMetrics.monitor(registry, manager.createCache(name, config));
+    }
+}
@@ -1,7 +1,11 @@
 package com.social_media_app.config;
 
+import com.social_media_app.security.BcryptCostCalibrator;
 import com.social_media_app.security.JwtFilter;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,19 +13,38 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @RequiredArgsConstructor
 @Configuration
 public class SecurityConfig {
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final String BCRYPT = "bcrypt";
     private final JwtFilter jwt;
 
 
+    /**
+     * Hashes are stored as {@code {bcrypt}$2a$<cost>$...}, so every hash carries its own algorithm and
+     * cost and old hashes keep verifying after the cost changes. Legacy hashes without an {@code {id}}
+     * prefix are matched as BCrypt. {@code AuthService.login} rehashes whenever
+     * {@link PasswordEncoder#upgradeEncoding} reports a weaker algorithm or cost.
+     */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt.cost:0}") int cost,
+                                    @Value("${security.password.bcrypt.target-ms:250}") long targetMs,
+                                    @Value("${security.password.bcrypt.min-cost:10}") int minCost,
+                                    @Value("${security.password.bcrypt.max-cost:16}") int maxCost) {
+        int strength = cost > 0 ? cost : BcryptCostCalibrator.calibrate(targetMs, minCost, maxCost);
+        log.info("Using BCrypt cost {} (configured={}, target={}ms)", strength, cost, targetMs);
+
+        var encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 
     @Bean
@@ -31,7 +54,13 @@ public class SecurityConfig {
         http.authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/register", "/api/auth/login", "/h2-console/**").permitAll()
                 .requestMatchers("/api/auth/me").authenticated()
+                // local media store downloads authenticate by URL signature, like S3 presigned GETs
+                .requestMatchers("/api/media/files/**").permitAll()
                 .requestMatchers("/api/media/**", "/api/auth/me").authenticated()
+                // metrics expose cache, pool and endpoint internals and anyone can register, so they
+                // take an admin (security.admin-usernames); only the health probe is public
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().permitAll()
         );
         http.headers(h -> h.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable));
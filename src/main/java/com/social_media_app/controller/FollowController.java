@@ -2,6 +2,7 @@ package com.social_media_app.controller;
 
 import com.social_media_app.model.Follow;
 import com.social_media_app.model.User;
+import com.social_media_app.service.FollowGraph;
 import com.social_media_app.service.FollowService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/api/follows")
@@ -52,7 +54,10 @@ public class FollowController {
      */
     @GetMapping("/following/{userId}")
     public List<FollowResponse> listFollowing(@PathVariable Long userId) {
-        return follows.listFollowing(userId).stream().map(FollowResponse::from).toList();
+        FollowGraph.Edges edges = follows.listFollowing(userId);
+        return IntStream.range(0, edges.userIds().length)
+                .mapToObj(i -> new FollowResponse(edges.followIds()[i], userId, edges.userIds()[i]))
+                .toList();
     }
 
     /**
@@ -60,7 +65,10 @@ public class FollowController {
      */
     @GetMapping("/followers/{userId}")
     public List<FollowResponse> listFollowers(@PathVariable Long userId) {
-        return follows.listFollowers(userId).stream().map(FollowResponse::from).toList();
+        FollowGraph.Edges edges = follows.listFollowers(userId);
+        return IntStream.range(0, edges.userIds().length)
+                .mapToObj(i -> new FollowResponse(edges.followIds()[i], edges.userIds()[i], userId))
+                .toList();
     }
 
     // --- DTOs ---
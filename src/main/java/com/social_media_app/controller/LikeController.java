@@ -1,11 +1,16 @@
 package com.social_media_app.controller;
 
+import com.social_media_app.model.dto.LikeSummary;
 import com.social_media_app.service.LikeService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/likes")
 public class LikeController {
@@ -46,8 +51,15 @@ public class LikeController {
         return new LikedResponse(userId, postId, liked);
     }
 
+    /** Counts and liked-by-user flags for a batch of posts (one feed page) in a single call */
+    @PostMapping("/summary")
+    public List<LikeSummary> summary(@RequestBody @Valid SummaryRequest req) {
+        return likes.summarize(req.userId(), req.postIds());
+    }
+
     // --- DTOs ---
     public record LikeRequest(@NotNull Long userId, @NotNull Long postId) {}
+    public record SummaryRequest(Long userId, @NotEmpty @Size(max = 100) List<@NotNull Long> postIds) {}
     public record CountResponse(Long postId, long count) {}
     public record LikedResponse(Long userId, Long postId, boolean liked) {}
 }
@@ -0,0 +1,69 @@
+package com.social_media_app.controller;
+
+import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.service.LocalMediaStore;
+import com.social_media_app.service.MediaStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+/** Serves {@link LocalMediaStore} objects from the signed URLs it hands out in place of S3 presigned GETs */
+@RestController
+@RequestMapping("/api/media/files")
+@ConditionalOnProperty(name = "media.store.type", havingValue = "local")
+public class LocalMediaController {
+
+    /** Tomcat request attributes that hand the response body to the connector's sendfile() path */
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalMediaStore store;
+
+    public LocalMediaController(LocalMediaStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Zero-copy download: on Tomcat the file is handed to the connector, which sends it with sendfile();
+     * elsewhere it is copied with {@code FileChannel.transferTo} into the response channel.
+     */
+    @GetMapping("/{*key}")
+    public void download(@PathVariable String key,
+                         @RequestParam long expires,
+                         @RequestParam String signature,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String objectKey = key.startsWith("/") ? key.substring(1) : key;
+        if (!store.verify(objectKey, expires, signature)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired media URL");
+        }
+        MediaStore.StoredObject object = store.head(objectKey)
+                .orElseThrow(() -> new NotFoundException("Media not found: key=" + objectKey));
+
+        response.setContentType(object.contentType() != null ? object.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(object.size());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + Math.max(0, expires - System.currentTimeMillis() / 1000));
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, store.path(objectKey).toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, object.size());
+            return;
+        }
+        store.transferTo(objectKey, 0, object.size(), Channels.newChannel(response.getOutputStream()));
+    }
+}
@@ -1,36 +1,222 @@
 package com.social_media_app.controller;
 
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.service.MediaDiskCache;
+import com.social_media_app.service.MediaService;
+import com.social_media_app.service.MediaStore;
 import com.social_media_app.service.S3StorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 
 import java.net.URL;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/media")
 public class MediaController {
 
-    private final S3StorageService s3;
+    private static final Duration UPLOAD_URL_TTL = Duration.ofMinutes(15);
 
-    public MediaController(S3StorageService s3) {
-        this.s3 = s3;
+    private final MediaStore store;
+    private final ObjectProvider<S3StorageService> s3Provider;
+    private final MediaService media;
+    private final MediaDiskCache cache;
+
+    public MediaController(MediaStore store, ObjectProvider<S3StorageService> s3, MediaService media, MediaDiskCache cache) {
+        this.store = store;
+        this.s3Provider = s3;
+        this.media = media;
+        this.cache = cache;
     }
 
+    /** Content already stored (same SHA-256) is not uploaded again; the response then carries the existing key */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Map<String, Object> upload(@RequestPart("file") @NotNull MultipartFile file,
                                       Authentication auth) throws Exception {
         String username = auth != null ? auth.getName() : "anonymous";
-        String key = s3.upload("uploads/" + username, file);
-        URL url = s3.presignedUrl(key, Duration.ofHours(1));
+        String key = media.upload(username, file).getObjectKey();
+        URL url = store.presignedUrl(key, Duration.ofHours(1));
+
+        return Map.of("key", key, "url", url.toString());
+    }
+
+    /**
+     * Same as {@code /upload}, but the transfer runs on the async S3 client with parts uploaded in
+     * parallel; the request thread is released while S3 is busy.
+     */
+    @PostMapping(value = "/upload/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<Map<String, Object>> uploadAsync(@RequestPart("file") @NotNull MultipartFile file,
+                                                              Authentication auth) throws Exception {
+        String username = auth != null ? auth.getName() : "anonymous";
+
+        requireS3();
+        return media.uploadAsync(username, file).thenApply(saved -> Map.of("key", saved.getObjectKey(),
+                "url", store.presignedUrl(saved.getObjectKey(), Duration.ofHours(1)).toString()));
+    }
+
+    /**
+     * Raw-body upload (no multipart): the request stream is piped into an S3 multipart upload part by
+     * part, so nothing is buffered to a temp file. The object's content type is the request's.
+     * Registered and deduplicated like {@code /upload}.
+     */
+    @PutMapping("/stream")
+    public Map<String, Object> uploadStream(HttpServletRequest request, Authentication auth) throws Exception {
+        String username = auth != null ? auth.getName() : "anonymous";
+        String contentType = request.getContentType() != null ? request.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        String key = media.upload(username, request.getInputStream(), contentType).getObjectKey();
+        URL url = store.presignedUrl(key, Duration.ofHours(1));
 
         return Map.of("key", key, "url", url.toString());
     }
+
+    /**
+     * Direct-to-S3 upload, step 1: presigned PUT URL (or per-part URLs for multipart sizes). The client
+     * sends the bytes to S3 itself and then calls {@code /presign/complete} with the same {@code size}.
+     */
+    @PostMapping("/presign")
+    public PresignResponse presign(@RequestBody @Valid PresignRequest req, Authentication auth) {
+        var upload = requireS3().presignUpload(MediaService.uploadPrefix(auth.getName()), req.contentType(), req.size(), UPLOAD_URL_TTL);
+
+        return new PresignResponse(upload.key(), upload.uploadId(), upload.partSize(),
+                upload.urls().stream().map(URL::toString).toList());
+    }
+
+    /** Direct-to-S3 upload, step 2: completes the multipart upload if any and registers the object */
+    @PostMapping("/presign/complete")
+    public Map<String, Object> complete(@RequestBody @Valid CompleteRequest req, Authentication auth) throws Exception {
+        requireS3();
+        List<CompletedPart> parts = req.parts() == null ? List.of() : req.parts().stream()
+                .map(p -> CompletedPart.builder().partNumber(p.partNumber()).eTag(p.eTag()).build())
+                .toList();
+        MediaObject saved = media.complete(auth.getName(), req.key(), req.uploadId(), parts, req.size());
+        URL url = store.presignedUrl(saved.getObjectKey(), Duration.ofHours(1));
+
+        return Map.of("key", saved.getObjectKey(), "size", saved.getSize(), "url", url.toString());
+    }
+
+    /**
+     * Download URL sized for where the media is shown ({@code THUMBNAIL}, {@code FEED} or {@code FULL});
+     * the original is returned until its variants have been generated, and for non-image media.
+     */
+    @GetMapping("/url")
+    public Map<String, Object> url(@RequestParam String key,
+                                   @RequestParam(defaultValue = "FEED") MediaVariant variant) {
+        URL url = media.presignedUrl(key, variant, Duration.ofHours(1));
+
+        return Map.of("key", key, "variant", variant, "url", url.toString());
+    }
+
+    /**
+     * Streams {@code key} through the app from the local disk cache (filled from the store on a miss).
+     * Range requests get 206 with the requested byte ranges, and a matching {@code If-None-Match} gets 304;
+     * both are applied by Spring MVC to the returned {@link Resource}. A single range of an object too large
+     * for the cache is fetched from the store as just that range instead. Keys are never rewritten in place,
+     * so responses are cacheable as immutable. Keys that are not registered media (or their variants) get 404.
+     */
+    @GetMapping("/{*key}")
+    public ResponseEntity<Resource> download(@PathVariable String key,
+                                             @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) throws Exception {
+        String objectKey = key.startsWith("/") ? key.substring(1) : key;
+        media.requireDownloadable(objectKey);
+        MediaDiskCache.Entry entry = cache.get(objectKey);
+        MediaType type = entry.contentType() != null ? MediaType.parseMediaType(entry.contentType()) : MediaType.APPLICATION_OCTET_STREAM;
+
+        if (entry.file() == null && range != null) {
+            var partial = storedRange(entry, type, range);
+            if (partial != null) {
+                return partial;
+            }
+        }
+        Resource body = cache.resource(entry);
+        if (body instanceof MediaDiskCache.OpenFile file) {
+            // request attributes are completed only after the body has been written
+            RequestContextHolder.currentRequestAttributes()
+                    .registerDestructionCallback(MediaDiskCache.OpenFile.class.getName(), file::close, RequestAttributes.SCOPE_REQUEST);
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.eTag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(type)
+                .contentLength(entry.size())
+                .body(body);
+    }
+
+    /**
+     * 206 with a single requested range of an uncached object, read from the store as a ranged GET; null for
+     * several ranges, which are left to Spring MVC. Unparseable or unsatisfiable ranges get 416.
+     */
+    private ResponseEntity<Resource> storedRange(MediaDiskCache.Entry entry, MediaType type, String range) {
+        long start;
+        long end;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            if (ranges.size() != 1) {
+                return null;
+            }
+            start = ranges.get(0).getRangeStart(entry.size());
+            end = ranges.get(0).getRangeEnd(entry.size());
+            if (start > end) {
+                throw new IllegalArgumentException("Range starts past the end: " + range);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + entry.size())
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .eTag(entry.eTag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(start, end, entry.size()))
+                .contentType(type)
+                .contentLength(end - start + 1)
+                .body(cache.resource(entry, start, end - start + 1));
+    }
+
+    /** The S3-only endpoints answer 501 when another {@link MediaStore} is configured */
+    private S3StorageService requireS3() {
+        S3StorageService service = s3Provider.getIfAvailable();
+        if (service == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Requires media.store.type=s3");
+        }
+        return service;
+    }
+
+    public record PresignRequest(@NotBlank String contentType, @Positive long size) {}
+    public record PresignResponse(String key, String uploadId, long partSize, List<String> urls) {}
+    /** {@code size} is the one sent to {@code /presign}; a larger object is deleted and answered with 413 */
+    public record CompleteRequest(@NotBlank String key, String uploadId, List<@Valid PartETag> parts, @Positive long size) {}
+    public record PartETag(@NotNull @Positive Integer partNumber, @NotBlank String eTag) {}
 }
@@ -1,13 +1,18 @@
 package com.social_media_app.controller;
 
 import com.social_media_app.model.Post;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.model.dto.PostView;
 import com.social_media_app.service.PostService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,11 +24,15 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
 
+    /** Largest {@code size} a page or slice may ask for; out-of-range values are rejected with 400 */
+    static final int MAX_PAGE_SIZE = 100;
+
     private final PostService posts;
 
     public PostController(PostService posts) {
@@ -48,8 +57,8 @@ public class PostController {
     @GetMapping("/by-author/{authorId}")
     public PageResponse<PostResponse> listByAuthor(
             @PathVariable Long authorId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size
     ) {
         Page<Post> result = posts.listByAuthor(authorId, PageRequest.of(page, size));
         List<PostResponse> content = result.getContent().stream().map(PostResponse::from).toList();
@@ -60,8 +69,8 @@ public class PostController {
     @GetMapping("/feed/{userId}")
     public PageResponse<PostResponse> feed(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size
     ) {
         Page<Post> result = posts.feedFor(userId, PageRequest.of(page, size));
         List<PostResponse> content = result.getContent().stream().map(PostResponse::from).toList();
@@ -69,6 +78,48 @@ public class PostController {
         return PageResponse.of(content, result.getNumber(), result.getSize(), result.getTotalElements(), result.getTotalPages());
     }
 
+    /**
+     * Keyset variant of {@link #listByAuthor}: pass the previous response's {@code nextCursor} as {@code before}
+     */
+    @GetMapping("/by-author/{authorId}/scroll")
+    public SliceResponse<PostResponse> scrollByAuthor(
+            @PathVariable Long authorId,
+            @RequestParam(required = false) PostCursor before,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size
+    ) {
+        Slice<Post> result = posts.listByAuthor(authorId, before, size);
+
+        return SliceResponse.of(result, PostResponse::from, PostCursor::of);
+    }
+
+    /**
+     * Keyset variant of {@link #feed}: pass the previous response's {@code nextCursor} as {@code before}
+     */
+    @GetMapping("/feed/{userId}/scroll")
+    public SliceResponse<PostResponse> scrollFeed(
+            @PathVariable Long userId,
+            @RequestParam(required = false) PostCursor before,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size
+    ) {
+        Slice<Post> result = posts.feedFor(userId, before, size);
+
+        return SliceResponse.of(result, PostResponse::from, PostCursor::of);
+    }
+
+    /**
+     * {@link #scrollFeed} with author username, like count and the feed owner's liked flag on every item
+     */
+    @GetMapping("/feed/{userId}/hydrated")
+    public SliceResponse<PostView> hydratedFeed(
+            @PathVariable Long userId,
+            @RequestParam(required = false) PostCursor before,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size
+    ) {
+        Slice<PostView> result = posts.hydratedFeedFor(userId, before, size);
+
+        return SliceResponse.of(result, Function.identity(), PostCursor::of);
+    }
+
     // --- DTOs ---
     public record CreatePostRequest(
             @NotNull Long authorId,
@@ -90,5 +141,14 @@ public class PostController {
             return new PageResponse<>(content, page, size, totalElements, totalPages);
         }
     }
+
+    public record SliceResponse<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+        static <S, T> SliceResponse<T> of(Slice<S> slice, Function<S, T> mapper, Function<S, PostCursor> position) {
+            List<S> items = slice.getContent();
+            String next = slice.hasNext() ? position.apply(items.get(items.size() - 1)).token() : null;
+
+            return new SliceResponse<>(items.stream().map(mapper).toList(), slice.getSize(), slice.hasNext(), next);
+        }
+    }
 }
 
@@ -0,0 +1,54 @@
+package com.social_media_app.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells which database constraint rejected a write, so services can insert optimistically
+ * and map unique / foreign-key violations to {@link ConflictException} / {@link NotFoundException}.
+ * <p>
+ * Constraints are matched by name, and failing that by their column list: {@code ddl-auto: update} never
+ * renames the generated names ({@code UK...}, {@code FK...}) that databases created before the constraints
+ * were named still carry. To move such a database over, rename them once, e.g. on PostgreSQL
+ * {@code alter table follows rename constraint <old> to uk_follows_follower_followed}.
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    /**
+     * @param columns the constraint's columns in declaration order, matched when the name is not reported
+     */
+    public static boolean isViolated(DataIntegrityViolationException ex, String constraintName, String... columns) {
+        String name = constraintName.toLowerCase(Locale.ROOT);
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null
+                    && cve.getConstraintName().toLowerCase(Locale.ROOT).contains(name)) {
+                return true;
+            }
+        }
+        // not every dialect extracts the name; the driver message always carries it
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message == null) {
+            return false;
+        }
+        message = message.toLowerCase(Locale.ROOT);
+        return message.contains(name) || (columns.length > 0 && mentionsColumns(message, columns));
+    }
+
+    /**
+     * Drivers list the columns in parentheses: {@code Key (follower_id, followed_id)=(...)} on PostgreSQL,
+     * {@code FOLLOWS(FOLLOWER_ID NULLS FIRST, ...)} or {@code FOREIGN KEY(FOLLOWED_ID)} on H2. The closing
+     * parenthesis keeps a single-column foreign key from matching a composite unique key that starts with it;
+     * the failed statement H2 appends is cut off, its insert column list would match anything.
+     */
+    private static boolean mentionsColumns(String message, String... columns) {
+        int statement = message.indexOf("sql statement:");
+        String violation = statement >= 0 ? message.substring(0, statement) : message;
+        String normalized = violation.replace(" nulls first", "").replace("\"", "").replace(" ", "");
+        return normalized.contains("(" + String.join(",", columns).toLowerCase(Locale.ROOT) + ")");
+    }
+}
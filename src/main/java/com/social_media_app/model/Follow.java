@@ -2,6 +2,7 @@ package com.social_media_app.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -19,7 +20,7 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "follows",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "followed_id"}),
+        uniqueConstraints = @UniqueConstraint(name = Follow.UK_FOLLOWER_FOLLOWED, columnNames = {"follower_id", "followed_id"}),
         indexes = {
                 @Index(name = "idx_follows_follower", columnList = "follower_id"),
                 @Index(name = "idx_follows_followed", columnList = "followed_id")
@@ -31,16 +32,20 @@ import lombok.Setter;
 @Builder
 @EqualsAndHashCode(of = "id")
 public class Follow {
+    public static final String UK_FOLLOWER_FOLLOWED = "uk_follows_follower_followed";
+    public static final String FK_FOLLOWER = "fk_follows_follower";
+    public static final String FK_FOLLOWED = "fk_follows_followed";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "follower_id", nullable = false)
+    @JoinColumn(name = "follower_id", nullable = false, foreignKey = @ForeignKey(name = FK_FOLLOWER))
     private User follower;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "followed_id", nullable = false)
+    @JoinColumn(name = "followed_id", nullable = false, foreignKey = @ForeignKey(name = FK_FOLLOWED))
     private User followed;
 }
 
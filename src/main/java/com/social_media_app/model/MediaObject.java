@@ -0,0 +1,85 @@
+package com.social_media_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * A stored media object whose upload has completed, whether it went through the app or straight to S3.
+ * Objects uploaded through the app carry their content hash and are shared by every upload of the same
+ * bytes; {@code refCount} counts those uploads.
+ */
+@Entity
+@Table(name = "media_objects", uniqueConstraints = {
+        @UniqueConstraint(name = MediaObject.UK_OBJECT_KEY, columnNames = "object_key"),
+        @UniqueConstraint(name = MediaObject.UK_SHA256, columnNames = "sha256")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+public class MediaObject {
+    public static final String UK_OBJECT_KEY = "uk_media_objects_object_key";
+    public static final String UK_SHA256 = "uk_media_objects_sha256";
+    public static final String FK_OWNER = "fk_media_objects_owner";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+
+    /** Hex SHA-256 of the content; null for direct-to-S3 uploads, whose bytes the app never sees */
+    @Column(length = 64)
+    private String sha256;
+
+    /** Maintained with bulk increments by {@code MediaObjectRepository}, never written through the entity after insert */
+    @Builder.Default
+    @ColumnDefault("1")
+    @Column(name = "ref_count", nullable = false, updatable = false)
+    private long refCount = 1;
+
+    /** Set by {@code MediaVariantProcessor} once every {@link MediaVariant} of this image is stored */
+    @ColumnDefault("false")
+    @Column(name = "variants_ready", nullable = false, updatable = false)
+    private boolean variantsReady;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false, foreignKey = @ForeignKey(name = FK_OWNER))
+    private User owner;
+
+    @Column(length = 255)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,31 @@
+package com.social_media_app.model;
+
+import java.util.Locale;
+
+/** Re-encoded renditions of an uploaded image, each bounded by {@code maxEdge} pixels on its longer side */
+public enum MediaVariant {
+    THUMBNAIL(320, 0.80f),
+    FEED(1080, 0.85f),
+    FULL(2048, 0.90f);
+
+    private final int maxEdge;
+    private final float jpegQuality;
+
+    MediaVariant(int maxEdge, float jpegQuality) {
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+    }
+
+    public int maxEdge() {
+        return maxEdge;
+    }
+
+    public float jpegQuality() {
+        return jpegQuality;
+    }
+
+    /** Object key of this variant of {@code originalKey}, e.g. {@code uploads/alex/<uuid>.thumbnail.jpg} */
+    public String keyFor(String originalKey) {
+        return "%s.%s.jpg".formatted(originalKey, name().toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,5 +1,6 @@
 package com.social_media_app.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -18,6 +19,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 
@@ -31,7 +35,11 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @EqualsAndHashCode(of = "id")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Post.CACHE_REGION)
 public class Post {
+    public static final String CACHE_REGION = "posts";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -51,6 +59,14 @@ public class Post {
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    /**
+     * Maintained by {@code LikeCounter} with bulk updates, never written through the entity after insert.
+     * Those bypass the second-level cache, so read it with a query rather than from a loaded entity.
+     */
+    @ColumnDefault("0")
+    @Column(name = "like_count", nullable = false, updatable = false)
+    private long likeCount;
+
     @PrePersist
     void prePersist() {
         if (createdAt == null) createdAt = Instant.now();
@@ -2,6 +2,7 @@ package com.social_media_app.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -19,7 +20,7 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "post_likes",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "post_id"}),
+        uniqueConstraints = @UniqueConstraint(name = PostLike.UK_USER_POST, columnNames = {"user_id", "post_id"}),
         indexes = {
                 @Index(name = "idx_post_likes_post", columnList = "post_id"),
                 @Index(name = "idx_post_likes_user", columnList = "user_id")
@@ -31,15 +32,19 @@ import lombok.Setter;
 @Builder
 @EqualsAndHashCode(of = "id")
 public class PostLike {
+    public static final String UK_USER_POST = "uk_post_likes_user_post";
+    public static final String FK_USER = "fk_post_likes_user";
+    public static final String FK_POST = "fk_post_likes_post";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = FK_USER))
     private User user;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "post_id", nullable = false)
+    @JoinColumn(name = "post_id", nullable = false, foreignKey = @ForeignKey(name = FK_POST))
     private Post post;
 }
\ No newline at end of file
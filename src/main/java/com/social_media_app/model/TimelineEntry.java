@@ -0,0 +1,58 @@
+package com.social_media_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Materialized home-timeline row: "post {post} shows up in the feed of {ownerId}".
+ * Author and creation time are copied from the post so a feed page is a single
+ * range scan over (owner_id, created_at).
+ */
+@Entity
+@Table(name = "timeline_entries",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"owner_id", "post_id"}),
+        indexes = {
+                @Index(name = "idx_timeline_owner_created_at", columnList = "owner_id, created_at"),
+                @Index(name = "idx_timeline_owner_author", columnList = "owner_id, author_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+public class TimelineEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
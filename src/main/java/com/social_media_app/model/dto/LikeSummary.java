@@ -0,0 +1,7 @@
+package com.social_media_app.model.dto;
+
+public record LikeSummary(
+        Long postId,
+        long count,
+        boolean liked) {
+}
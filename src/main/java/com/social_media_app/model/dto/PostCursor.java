@@ -0,0 +1,41 @@
+package com.social_media_app.model.dto;
+
+import com.social_media_app.model.Post;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in a newest-first post listing: everything strictly older than
+ * ({@code createdAt}, {@code id}). Serialized as {@code <ISO-8601 createdAt>,<id>}.
+ */
+public record PostCursor(Instant createdAt, Long id) {
+
+    /** Position before any real post, used to read the first slice */
+    public static final PostCursor NEWEST = new PostCursor(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE);
+
+    public static PostCursor of(Post post) {
+        return new PostCursor(post.getCreatedAt(), post.getId());
+    }
+
+    public static PostCursor of(PostView view) {
+        return new PostCursor(view.createdAt(), view.id());
+    }
+
+    /** Parses a cursor token; also used by Spring to bind {@code ?before=} request parameters */
+    public static PostCursor valueOf(String token) {
+        int comma = token.lastIndexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        try {
+            return new PostCursor(Instant.parse(token.substring(0, comma)), Long.parseLong(token.substring(comma + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+
+    public String token() {
+        return createdAt + "," + id;
+    }
+}
@@ -0,0 +1,17 @@
+package com.social_media_app.model.dto;
+
+import java.time.Instant;
+
+/**
+ * Feed item with everything a client renders: author name, like count and whether the viewer liked it
+ */
+public record PostView(
+        Long id,
+        Long authorId,
+        String authorUsername,
+        String title,
+        String body,
+        Instant createdAt,
+        long likeCount,
+        boolean liked) {
+}
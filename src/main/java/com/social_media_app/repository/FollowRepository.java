@@ -3,16 +3,30 @@ package com.social_media_app.repository;
 import com.social_media_app.model.Follow;
 import com.social_media_app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface FollowRepository extends JpaRepository<Follow, Long> {
     boolean existsByFollowerAndFollowed(User follower, User followed);
 
-    Optional<Follow> findByFollowerAndFollowed(User follower, User followed);
+    long countByFollowedId(Long followedId);
 
-    List<Follow> findAllByFollower(User follower);
+    /** Single-statement delete; returns 1 if the relation existed, 0 otherwise */
+    @Modifying
+    @Query("delete from Follow f where f.follower.id = :followerId and f.followed.id = :followedId")
+    int deleteByFollowerIdAndFollowedId(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
 
-    List<Follow> findAllByFollowed(User followed);
+    /** Those of {followedIds} that have at least {threshold} followers, counted in one grouped scan */
+    @Query("""
+            select f.followed.id from Follow f
+            where f.followed.id in :followedIds
+            group by f.followed.id
+            having count(f) >= :threshold
+            """)
+    List<Long> findFollowedIdsHavingFollowersAtLeast(@Param("followedIds") Collection<Long> followedIds,
+                                                     @Param("threshold") long threshold);
 }
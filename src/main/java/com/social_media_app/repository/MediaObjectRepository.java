@@ -0,0 +1,27 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.model.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface MediaObjectRepository extends JpaRepository<MediaObject, Long> {
+    Optional<MediaObject> findByObjectKey(String objectKey);
+
+    Optional<MediaObject> findBySha256(String sha256);
+
+    /** One more upload now shares object {id}; single statement so concurrent uploads cannot lose counts */
+    @Transactional
+    @Modifying
+    @Query("update MediaObject m set m.refCount = m.refCount + 1 where m.id = :id")
+    int incrementRefCount(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update MediaObject m set m.variantsReady = true where m.id = :id")
+    int markVariantsReady(@Param("id") Long id);
+}
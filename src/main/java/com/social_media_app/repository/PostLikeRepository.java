@@ -1,14 +1,32 @@
 package com.social_media_app.repository;
 
-import com.social_media_app.model.Post;
 import com.social_media_app.model.PostLike;
-import com.social_media_app.model.User;
+import com.social_media_app.model.dto.LikeSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
-    boolean existsByUserAndPost(User user, Post post);
+    boolean existsByUserIdAndPostId(Long userId, Long postId);
 
-    long countByPost(Post post);
+    /** Single-statement delete; returns 1 if the like existed, 0 otherwise */
+    @Modifying
+    @Query("delete from PostLike pl where pl.user.id = :userId and pl.post.id = :postId")
+    int deleteByUserIdAndPostId(@Param("userId") Long userId, @Param("postId") Long postId);
 
-    void deleteByUserAndPost(User user, Post post);
+    /** Stored like count and "liked by {userId}" flag for each existing post in {postIds}, in one query */
+    @Query("""
+            select new com.social_media_app.model.dto.LikeSummary(
+                p.id,
+                p.likeCount,
+                case when exists (select 1 from PostLike pl where pl.post = p and pl.user.id = :userId)
+                     then true else false end)
+            from Post p
+            where p.id in :postIds
+            """)
+    List<LikeSummary> summarize(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
 }
@@ -2,12 +2,49 @@ package com.social_media_app.repository;
 
 import com.social_media_app.model.Post;
 import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> findAllByAuthorOrderByCreatedAtDesc(User author, Pageable pageable);
 
     Page<Post> findAllByAuthorIdInOrderByCreatedAtDesc(Iterable<Long> authorIds, Pageable pageable);
+
+    long countByAuthorIdIn(Collection<Long> authorIds);
+
+    /** Hydrated views of {ids} (any order) with author and liked-by-{viewerId} resolved in the same query */
+    @Query("""
+            select new com.social_media_app.model.dto.PostView(
+                p.id, a.id, a.username, p.title, p.body, p.createdAt, p.likeCount,
+                case when exists (select 1 from PostLike pl where pl.post = p and pl.user.id = :viewerId)
+                     then true else false end)
+            from Post p join p.author a
+            where p.id in :ids
+            """)
+    List<PostView> findViewsByIdIn(@Param("ids") Collection<Long> ids, @Param("viewerId") Long viewerId);
+
+    @Query("select p.likeCount from Post p where p.id = :id")
+    Optional<Long> findLikeCountById(@Param("id") Long id);
+
+    /** Keyset page on idx_posts_author_id_created_at: posts of one author older than (createdAt, id) */
+    @Query("""
+            select p from Post p
+            where p.author.id = :authorId
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    List<Post> findByAuthorIdBefore(@Param("authorId") Long authorId,
+                                    @Param("createdAt") Instant createdAt,
+                                    @Param("id") Long id,
+                                    Limit limit);
 }
@@ -0,0 +1,113 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.TimelineEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    @Query(value = "select t.post from TimelineEntry t where t.ownerId = :ownerId order by t.createdAt desc, t.post.id desc",
+            countQuery = "select count(t) from TimelineEntry t where t.ownerId = :ownerId")
+    Page<Post> findPostsByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query(value = """
+            select t.post from TimelineEntry t
+            where t.ownerId = :ownerId and t.authorId not in :excludedAuthorIds
+            order by t.createdAt desc, t.post.id desc
+            """,
+            countQuery = "select count(t) from TimelineEntry t where t.ownerId = :ownerId and t.authorId not in :excludedAuthorIds")
+    Page<Post> findPostsByOwnerIdExcludingAuthors(@Param("ownerId") Long ownerId,
+                                                  @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds,
+                                                  Pageable pageable);
+
+    long countByOwnerId(Long ownerId);
+
+    @Query("select count(t) from TimelineEntry t where t.ownerId = :ownerId and t.authorId not in :excludedAuthorIds")
+    long countByOwnerIdExcludingAuthors(@Param("ownerId") Long ownerId,
+                                        @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds);
+
+    /** Keyset page on idx_timeline_owner_created_at: timeline posts older than (createdAt, postId) */
+    @Query("""
+            select t.post from TimelineEntry t
+            where t.ownerId = :ownerId
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.post.id < :postId))
+            order by t.createdAt desc, t.post.id desc
+            """)
+    List<Post> findPostsByOwnerIdBefore(@Param("ownerId") Long ownerId,
+                                        @Param("createdAt") Instant createdAt,
+                                        @Param("postId") Long postId,
+                                        Limit limit);
+
+    @Query("""
+            select t.post from TimelineEntry t
+            where t.ownerId = :ownerId and t.authorId not in :excludedAuthorIds
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.post.id < :postId))
+            order by t.createdAt desc, t.post.id desc
+            """)
+    List<Post> findPostsByOwnerIdExcludingAuthorsBefore(@Param("ownerId") Long ownerId,
+                                                        @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds,
+                                                        @Param("createdAt") Instant createdAt,
+                                                        @Param("postId") Long postId,
+                                                        Limit limit);
+
+    /** Push one post into the timeline of every follower of its author */
+    @Modifying
+    @Query("""
+            insert into TimelineEntry (ownerId, post, authorId, createdAt)
+            select f.follower.id, p, p.author.id, p.createdAt
+            from Post p, Follow f
+            where p.id = :postId and f.followed.id = p.author.id
+            """)
+    int fanOut(@Param("postId") Long postId);
+
+    /** Copy the posts of {authorId} since {since} into the timeline of {ownerId} */
+    @Modifying
+    @Query("""
+            insert into TimelineEntry (ownerId, post, authorId, createdAt)
+            select f.follower.id, p, p.author.id, p.createdAt
+            from Post p, Follow f
+            where f.follower.id = :ownerId and f.followed.id = :authorId and p.author.id = :authorId
+              and p.createdAt >= :since
+            """)
+    int backfill(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId, @Param("since") Instant since);
+
+    /**
+     * Push every post since {since} into the timelines of its author's followers, skipping entries that exist
+     * and posts of {excludedAuthorIds}; fills timelines for relations and posts that predate fan-out
+     */
+    @Modifying
+    @Query("""
+            insert into TimelineEntry (ownerId, post, authorId, createdAt)
+            select f.follower.id, p, p.author.id, p.createdAt
+            from Post p, Follow f
+            where f.followed.id = p.author.id and p.createdAt >= :since
+              and p.author.id not in :excludedAuthorIds
+              and not exists (select 1 from TimelineEntry t where t.ownerId = f.follower.id and t.post = p)
+            """)
+    int backfillSince(@Param("since") Instant since, @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds);
+
+    /** Push the posts of {authorId} since {since} to all its followers, skipping entries that exist */
+    @Modifying
+    @Query("""
+            insert into TimelineEntry (ownerId, post, authorId, createdAt)
+            select f.follower.id, p, p.author.id, p.createdAt
+            from Post p, Follow f
+            where p.author.id = :authorId and f.followed.id = :authorId and p.createdAt >= :since
+              and not exists (select 1 from TimelineEntry t where t.ownerId = f.follower.id and t.post = p)
+            """)
+    int backfillAuthor(@Param("authorId") Long authorId, @Param("since") Instant since);
+
+    @Modifying
+    @Query("delete from TimelineEntry t where t.ownerId = :ownerId and t.authorId = :authorId")
+    int deleteByOwnerIdAndAuthorId(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId);
+}
@@ -3,11 +3,14 @@ package com.social_media_app.repository;
 import com.social_media_app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
-    Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    /** Login lookup in one round-trip; may return two rows when the login matches one user's username and another's email */
+    List<User> findByUsernameOrEmail(String username, String email);
 }
@@ -0,0 +1,10 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    /** Natural-id lookup: served from the {@link User#NATURAL_ID_CACHE_REGION} region when it is enabled */
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,28 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Resolves usernames through Hibernate's natural-id API rather than a derived JPQL query, which
+ * would always hit the database: username -> id comes from the natural-id cache and the row from
+ * the entity cache.
+ */
+@Transactional(readOnly = true)
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager em;
+
+    UserRepositoryCustomImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return em.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+    }
+}
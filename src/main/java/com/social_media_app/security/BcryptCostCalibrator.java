@@ -0,0 +1,44 @@
+package com.social_media_app.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the highest BCrypt cost whose hash time on this host stays within a target. One probe
+ * hash is timed at {@link #PROBE_COST}; every extra cost step doubles the work, so the result is
+ * {@code PROBE_COST + floor(log2(target / probe))}, clamped to {@code [minCost, maxCost]}.
+ */
+public final class BcryptCostCalibrator {
+
+    static final int PROBE_COST = 8;
+    private static final int PROBE_ROUNDS = 3;
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int minCost, int maxCost) {
+        return calibrate(targetMillis, minCost, maxCost, BcryptCostCalibrator::timeHashNanos);
+    }
+
+    static int calibrate(long targetMillis, int minCost, int maxCost, IntToLongFunction hashNanos) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            // first rounds double as JIT warm-up; keep the fastest
+            best = Math.min(best, hashNanos.applyAsLong(PROBE_COST));
+        }
+        long targetNanos = targetMillis * 1_000_000L;
+        int cost = PROBE_COST;
+        for (long t = Math.max(best, 1); t * 2 <= targetNanos && cost < maxCost; t *= 2) {
+            cost++;
+        }
+        return Math.max(minCost, Math.min(maxCost, cost));
+    }
+
+    private static long timeHashNanos(int cost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        probe.encode("calibration-probe");
+        return System.nanoTime() - start;
+    }
+}
@@ -1,6 +1,5 @@
 package com.social_media_app.security;
 
-import com.social_media_app.repository.UserRepository;
 import com.social_media_app.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,22 +7,20 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwt;
-    private final UserRepository users;
+    private final PrincipalCache principals;
 
-    public JwtFilter(JwtService jwt, UserRepository users) {
+    public JwtFilter(JwtService jwt, PrincipalCache principals) {
         this.jwt = jwt;
-        this.users = users;
+        this.principals = principals;
     }
 
     @Override
@@ -36,10 +33,10 @@ public class JwtFilter extends OncePerRequestFilter {
 
             try {
                 var username = jwt.getSubject(token);
-                var maybe = users.findByUsername(username);
+                var maybe = principals.get(username);
 
                 if (maybe.isPresent()) {
-                    var principal = new User(username, "", List.of());
+                    var principal = maybe.get();
                     var auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
 
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
@@ -0,0 +1,99 @@
+package com.social_media_app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.social_media_app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by username, so a verified JWT
+ * resolves without a database round-trip. Only active users are cached; entries are evicted
+ * when the user row changes (see {@link PrincipalEvictionListener}) and otherwise expire after the TTL.
+ * Hit/miss counters are published as {@code cache.gets{cache=principals}}.
+ */
+@Component
+public class PrincipalCache {
+
+    static final String NAME = "principals";
+    private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
+    private final UserRepository users;
+    /** Usernames granted {@code ROLE_ADMIN}, e.g. to read the actuator metrics */
+    private final Set<String> admins;
+    private final Cache<String, UserDetails> cache;
+    /** Bumped by every eviction, so a load that raced one can tell its row may be stale */
+    private final AtomicLong generation = new AtomicLong();
+
+    public PrincipalCache(UserRepository users,
+                          MeterRegistry registry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl-sec:300}") long ttlSec,
+                          @Value("${security.admin-usernames:}") List<String> admins) {
+        this.users = users;
+        this.admins = Set.copyOf(admins);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSec))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /** Principal for an active user, or empty when the user is missing or deactivated */
+    public Optional<UserDetails> get(String username) {
+        UserDetails cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadedAt = generation.get();
+        Optional<UserDetails> loaded = users.findByUsername(username)
+                .filter(u -> Boolean.TRUE.equals(u.getActive()))
+                .map(u -> User.withUsername(u.getUsername()).password("")
+                        .authorities(admins.contains(u.getUsername()) ? List.of(ADMIN) : List.of())
+                        .build());
+        loaded.ifPresent(p -> {
+            cache.put(username, p);
+            // an eviction since the read may have missed this put: take back what we cached
+            if (generation.get() != loadedAt) {
+                cache.asMap().remove(username, p);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops {username} now and again once the surrounding transaction commits. A concurrent miss that read
+     * the pre-commit row sees the generation change after its put and removes the entry again.
+     */
+    public void evict(String username) {
+        invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(username);
+                }
+            });
+        }
+    }
+
+    private void invalidate(String username) {
+        generation.incrementAndGet();
+        cache.invalidate(username);
+    }
+}
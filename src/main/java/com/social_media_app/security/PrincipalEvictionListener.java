@@ -0,0 +1,28 @@
+package com.social_media_app.security;
+
+import com.social_media_app.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User}: any update (e.g. flipping {@code active} to false) or delete evicts
+ * the cached principal. Resolved through Hibernate's Spring bean container; the cache is looked up
+ * lazily because it is absent in JPA-only test slices.
+ */
+@Component
+public class PrincipalEvictionListener {
+
+    private final ObjectProvider<PrincipalCache> principals;
+
+    public PrincipalEvictionListener(ObjectProvider<PrincipalCache> principals) {
+        this.principals = principals;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void evict(User user) {
+        principals.ifAvailable(cache -> cache.evict(user.getUsername()));
+    }
+}
@@ -1,47 +1,55 @@
 package com.social_media_app.service;
 
+import com.social_media_app.exceptions.ConstraintViolations;
 import com.social_media_app.model.User;
 import com.social_media_app.model.dto.AuthResponse;
 import com.social_media_app.model.dto.LoginRequest;
 import com.social_media_app.model.dto.RegisterRequest;
 import com.social_media_app.model.dto.UserResponse;
 import com.social_media_app.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Comparator;
 
 @Service
 public class AuthService {
     private final UserRepository users;
-    private final PasswordEncoder encoder;
+    private final PasswordHasher hasher;
     private final JwtService jwt;
 
-    public AuthService(UserRepository users, PasswordEncoder encoder, JwtService jwt) {
+    public AuthService(UserRepository users, PasswordHasher hasher, JwtService jwt) {
         this.users = users;
-        this.encoder = encoder;
+        this.hasher = hasher;
         this.jwt = jwt;
     }
 
-    @Transactional
+    /**
+     * Hashes outside any transaction, then relies on the named unique constraints instead of
+     * probing username and email first: a successful registration is a single INSERT.
+     */
     public UserResponse register(RegisterRequest r) {
         String username = r.username().trim();
         String email = r.email().trim().toLowerCase();
 
-        if (users.existsByUsername(username)) throw new IllegalArgumentException("username taken");
-        if (users.existsByEmail(email))      throw new IllegalArgumentException("email taken");
-
         var u = User.builder()
                 .username(username)
                 .email(email)
-                .passwordHash(encoder.encode(r.password()))
+                .passwordHash(hasher.encode(r.password()))
                 .createdAt(Instant.now())
                 .active(true)
                 .build();
 
-        var saved = users.save(u);
+        User saved;
+        try {
+            saved = users.saveAndFlush(u);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isViolated(ex, User.UK_USERNAME, "username")) throw new IllegalArgumentException("username taken");
+            if (ConstraintViolations.isViolated(ex, User.UK_EMAIL, "email"))    throw new IllegalArgumentException("email taken");
+            throw ex;
+        }
 
         return new UserResponse(saved.getId(), saved.getUsername(), saved.getEmail());
     }
@@ -49,13 +57,19 @@ public class AuthService {
     public AuthResponse login(LoginRequest r) {
         String login = r.usernameOrEmail().trim();
 
-        var user = users.findByUsername(login)
-                .or(() -> users.findByEmail(login.toLowerCase()))
+        // one query for both forms; a username match wins over an email match
+        var user = users.findByUsernameOrEmail(login, login.toLowerCase()).stream()
+                .min(Comparator.comparing((User u) -> !u.getUsername().equals(login)))
                 .orElseThrow(() -> new BadCredentialsException("bad credentials"));
 
-        if (!encoder.matches(r.password(), user.getPasswordHash())) {
+        if (!hasher.matches(r.password(), user.getPasswordHash())) {
             throw new BadCredentialsException("bad credentials");
         }
+        if (hasher.needsRehash(user.getPasswordHash())) {
+            // the plaintext is only available here, so upgrade cost/algorithm on successful login
+            user.setPasswordHash(hasher.encode(r.password()));
+            users.save(user);
+        }
 
         return new AuthResponse(jwt.generate(user.getUsername()));
     }
@@ -0,0 +1,120 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Heap-based k-way merge of newest-first post streams.
+ * <p>
+ * Every pulled author gets its own small keyset cursor on idx_posts_author_id_created_at that is
+ * refilled on demand, and the merge stops as soon as {@code limit} posts are produced, so quiet
+ * authors cost one short index probe instead of contributing to a large IN-list scan.
+ */
+@Component
+public class FeedMergeEngine {
+
+    public static final Comparator<Post> NEWEST_FIRST =
+            Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId).reversed();
+
+    /**
+     * Newest-first source of posts strictly older than {@code before}
+     */
+    @FunctionalInterface
+    public interface PostSource {
+        List<Post> fetch(PostCursor before, int limit);
+    }
+
+    private final PostRepository posts;
+    private final int perAuthorCap;
+
+    public FeedMergeEngine(PostRepository posts,
+                           @Value("${feed.merge.per-author-cap:0}") int perAuthorCap) {
+        this.posts = posts;
+        this.perAuthorCap = perAuthorCap > 0 ? perAuthorCap : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Newest {@code limit} posts older than {@code before} out of {@code timeline} (uncapped) and the posts
+     * of every author in {@code authorIds} (at most {@code feed.merge.per-author-cap} each)
+     */
+    public List<Post> merge(PostSource timeline, Collection<Long> authorIds, PostCursor before, int limit) {
+        // assume the page is spread evenly over the authors; busier authors double their batch on every refill
+        int authorBatch = Math.min(perAuthorCap, limit / (authorIds.size() + 1) + 1);
+
+        List<Cursor> cursors = new ArrayList<>(authorIds.size() + 1);
+        cursors.add(new Cursor(timeline, before, Integer.MAX_VALUE, limit, limit));
+        for (Long authorId : authorIds) {
+            PostSource source = (b, n) -> posts.findByAuthorIdBefore(authorId, b.createdAt(), b.id(), Limit.of(n));
+            cursors.add(new Cursor(source, before, perAuthorCap, authorBatch, limit));
+        }
+
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(cursors.size(), Comparator.comparing(Cursor::peek, NEWEST_FIRST));
+        for (Cursor s : cursors) {
+            if (s.fill(limit)) heap.add(s);
+        }
+
+        List<Post> result = new ArrayList<>(limit);
+        while (result.size() < limit && !heap.isEmpty()) {
+            Cursor top = heap.poll();
+            result.add(top.poll());
+            int needed = limit - result.size();
+            if (needed > 0 && top.fill(needed)) heap.add(top);
+        }
+        return result;
+    }
+
+    private static final class Cursor {
+        private final PostSource source;
+        private final int cap;
+        private final int maxBatch;
+        private final ArrayDeque<Post> buffer = new ArrayDeque<>();
+        private PostCursor position;
+        private int batch;
+        private int taken;
+        private boolean exhausted;
+
+        Cursor(PostSource source, PostCursor start, int cap, int firstBatch, int maxBatch) {
+            this.source = source;
+            this.position = start;
+            this.cap = cap;
+            this.batch = Math.max(1, firstBatch);
+            this.maxBatch = Math.max(1, maxBatch);
+        }
+
+        /**
+         * Makes sure a head post is buffered, fetching at most {@code needed} more rows when the buffer ran dry.
+         * Returns false once the stream is done.
+         */
+        boolean fill(int needed) {
+            if (buffer.isEmpty() && !exhausted && taken < cap) {
+                int n = Math.min(Math.min(batch, needed), cap - taken);
+                List<Post> rows = source.fetch(position, n);
+                buffer.addAll(rows);
+                exhausted = rows.size() < n;
+                if (!rows.isEmpty()) position = PostCursor.of(rows.get(rows.size() - 1));
+                batch = Math.min(batch * 2, maxBatch);
+            }
+            return !buffer.isEmpty();
+        }
+
+        Post peek() {
+            return buffer.peekFirst();
+        }
+
+        Post poll() {
+            taken++;
+            return buffer.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.social_media_app.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the {@code follows} table as two adjacency maps, user id to the sorted ids it follows
+ * and to the sorted ids following it, each with the id of the relation row alongside, so graph reads are a
+ * map lookup with no entities or boxing per edge.
+ * <p>
+ * Arrays are never modified once published: {@link #follow} and {@link #unfollow} swap in a copy after the
+ * surrounding transaction commits, and readers get a consistent snapshot without locking. The index is
+ * loaded on startup with one ordered scan of the table, and rebuilt the same way every
+ * {@code follows.graph.refresh-interval-ms} to pick up relations changed through other instances, which
+ * are eventually consistent until then. A single instance sees all changes itself and can turn the
+ * refresh off with {@code follows.graph.refresh-enabled}.
+ * The first load waits for the entity manager factory, which creates the table when {@code ddl-auto} is on.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class FollowGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowGraph.class);
+    private static final String LOAD_SQL = "select follower_id, followed_id, id from follows order by follower_id, followed_id";
+
+    private final JdbcTemplate jdbc;
+    private final boolean refreshEnabled;
+
+    private volatile Map<Long, Edges> following = new ConcurrentHashMap<>();
+    private volatile Map<Long, Edges> followers = new ConcurrentHashMap<>();
+    /** Changes applied while a rebuild is loading, replayed onto the new maps; guarded by {@code this} */
+    private List<Change> journal;
+
+    public FollowGraph(JdbcTemplate jdbc,
+                       @Value("${follows.graph.refresh-enabled:true}") boolean refreshEnabled) {
+        this.jdbc = jdbc;
+        this.refreshEnabled = refreshEnabled;
+    }
+
+    /** Sorted ids {@code userId} follows; shared, must not be modified */
+    public long[] following(long userId) {
+        return followingEdges(userId).userIds();
+    }
+
+    /** Sorted ids following {@code userId}; shared, must not be modified */
+    public long[] followers(long userId) {
+        return followerEdges(userId).userIds();
+    }
+
+    /** Users {@code userId} follows, with the relation ids */
+    public Edges followingEdges(long userId) {
+        return following.getOrDefault(userId, Edges.NONE);
+    }
+
+    /** Users following {@code userId}, with the relation ids */
+    public Edges followerEdges(long userId) {
+        return followers.getOrDefault(userId, Edges.NONE);
+    }
+
+    public int followerCount(long userId) {
+        return followers(userId).length;
+    }
+
+    /** Ids of the users with at least {@code min} followers */
+    public List<Long> withFollowersAtLeast(long min) {
+        List<Long> ids = new ArrayList<>();
+        followers.forEach((userId, edges) -> {
+            if (edges.userIds().length >= min) {
+                ids.add(userId);
+            }
+        });
+        return ids;
+    }
+
+    /** Adds relation {@code followId} once the surrounding transaction (if any) commits */
+    public void follow(long followerId, long followedId, long followId) {
+        afterCommit(new Change(followerId, followedId, followId, true));
+    }
+
+    /** Removes the relation once the surrounding transaction (if any) commits */
+    public void unfollow(long followerId, long followedId) {
+        afterCommit(new Change(followerId, followedId, 0, false));
+    }
+
+    /** Reloads both maps from the table; fails startup when the first load does */
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        try {
+            Loader loaded = jdbc.query(LOAD_SQL, new Loader());
+            Map<Long, Edges> newFollowing = loaded.following();
+            Map<Long, Edges> newFollowers = loaded.followers();
+            synchronized (this) {
+                // the load may or may not have seen these; applying them again is a no-op when it did
+                journal.forEach(change -> apply(change, newFollowing, newFollowers));
+                following = newFollowing;
+                followers = newFollowers;
+            }
+        } finally {
+            synchronized (this) {
+                journal = null;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${follows.graph.refresh-interval-ms:300000}",
+            initialDelayString = "${follows.graph.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!refreshEnabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to rebuild the follow graph, keeping the current one", ex);
+        }
+    }
+
+    private synchronized void apply(Change change) {
+        apply(change, following, followers);
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private static void apply(Change change, Map<Long, Edges> following, Map<Long, Edges> followers) {
+        if (change.added()) {
+            following.compute(change.followerId(), (k, edges) -> insert(edges, change.followedId(), change.followId()));
+            followers.compute(change.followedId(), (k, edges) -> insert(edges, change.followerId(), change.followId()));
+        } else {
+            following.computeIfPresent(change.followerId(), (k, edges) -> remove(edges, change.followedId()));
+            followers.computeIfPresent(change.followedId(), (k, edges) -> remove(edges, change.followerId()));
+        }
+    }
+
+    private static Edges insert(Edges edges, long userId, long followId) {
+        if (edges == null) {
+            return new Edges(new long[]{userId}, new long[]{followId});
+        }
+        int pos = Arrays.binarySearch(edges.userIds(), userId);
+        if (pos >= 0) {
+            return edges;
+        }
+        int at = -pos - 1;
+        return new Edges(insertAt(edges.userIds(), at, userId), insertAt(edges.followIds(), at, followId));
+    }
+
+    /** Returns null, dropping the key, when the last edge goes */
+    private static Edges remove(Edges edges, long userId) {
+        int at = Arrays.binarySearch(edges.userIds(), userId);
+        if (at < 0) {
+            return edges;
+        }
+        if (edges.userIds().length == 1) {
+            return null;
+        }
+        return new Edges(removeAt(edges.userIds(), at), removeAt(edges.followIds(), at));
+    }
+
+    private static long[] insertAt(long[] values, int at, long value) {
+        long[] copy = new long[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static long[] removeAt(long[] values, int at) {
+        long[] copy = new long[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return copy;
+    }
+
+    private void afterCommit(Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    /**
+     * Sorted user ids and, at the same index, the id of the {@code follows} row relating each one to the
+     * user it was looked up for; shared, must not be modified
+     */
+    public record Edges(long[] userIds, long[] followIds) {
+        static final Edges NONE = new Edges(new long[0], new long[0]);
+    }
+
+    private record Change(long followerId, long followedId, long followId, boolean added) {
+    }
+
+    /**
+     * Rows come sorted by (follower, followed): each follower's edges are buffered in order and copied out
+     * as one array. Every followed user's edges are appended in follower order, so they come out sorted too.
+     */
+    private static final class Loader implements ResultSetExtractor<Loader> {
+        private final Map<Long, Edges> following = new ConcurrentHashMap<>();
+        private final Map<Long, Buffer> followers = new HashMap<>();
+        private final Buffer current = new Buffer();
+        private long follower;
+
+        @Override
+        public Loader extractData(ResultSet rs) throws SQLException {
+            while (rs.next()) {
+                long next = rs.getLong(1);
+                long followed = rs.getLong(2);
+                long followId = rs.getLong(3);
+                if (current.count > 0 && next != follower) {
+                    following.put(follower, current.drain());
+                }
+                follower = next;
+                current.add(followed, followId);
+                followers.computeIfAbsent(followed, k -> new Buffer()).add(follower, followId);
+            }
+            if (current.count > 0) {
+                following.put(follower, current.drain());
+            }
+            return this;
+        }
+
+        Map<Long, Edges> following() {
+            return following;
+        }
+
+        Map<Long, Edges> followers() {
+            Map<Long, Edges> byFollowed = new ConcurrentHashMap<>(Math.max(16, followers.size() * 4 / 3));
+            followers.forEach((followed, buffer) -> byFollowed.put(followed, buffer.drain()));
+            return byFollowed;
+        }
+    }
+
+    private static final class Buffer {
+        private long[] userIds = new long[4];
+        private long[] followIds = new long[4];
+        private int count;
+
+        void add(long userId, long followId) {
+            if (count == userIds.length) {
+                userIds = Arrays.copyOf(userIds, count * 2);
+                followIds = Arrays.copyOf(followIds, count * 2);
+            }
+            userIds[count] = userId;
+            followIds[count++] = followId;
+        }
+
+        Edges drain() {
+            Edges edges = new Edges(Arrays.copyOf(userIds, count), Arrays.copyOf(followIds, count));
+            count = 0;
+            return edges;
+        }
+    }
+}
@@ -1,64 +1,102 @@
 package com.social_media_app.service;
 
 import com.social_media_app.exceptions.ConflictException;
+import com.social_media_app.exceptions.ConstraintViolations;
 import com.social_media_app.exceptions.NotFoundException;
 import com.social_media_app.model.Follow;
-import com.social_media_app.model.User;
 import com.social_media_app.repository.FollowRepository;
 import com.social_media_app.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 @Service
 @Transactional(readOnly = true)
 public class FollowService {
 
+    private static final String FOLLOWER_NOT_FOUND_ID = "Follower user not found: id=";
+    private static final String FOLLOWED_NOT_FOUND_ID = "Followed user not found: id=";
+
     private final FollowRepository follows;
     private final UserRepository users;
+    private final TimelineService timelines;
+    private final FollowGraph graph;
 
-    public FollowService(FollowRepository follows, UserRepository users) {
+    public FollowService(FollowRepository follows, UserRepository users, TimelineService timelines, FollowGraph graph) {
         this.follows = follows;
         this.users = users;
+        this.timelines = timelines;
+        this.graph = graph;
     }
 
+    /**
+     * Inserts against reference proxies; the unique / foreign-key constraints report duplicates
+     * and unknown users, so the happy path is a single INSERT.
+     */
     @Transactional
     public Follow follow(Long followerId, Long followedId) {
         if (followerId.equals(followedId)) {
             throw new ConflictException("You cannot follow yourself");
         }
-        User follower = users.findById(followerId)
-                .orElseThrow(() -> new NotFoundException("Follower user not found: id=" + followerId));
-        User followed = users.findById(followedId)
-                .orElseThrow(() -> new NotFoundException("Followed user not found: id=" + followedId));
-
-        if (follows.existsByFollowerAndFollowed(follower, followed)) {
-            throw new ConflictException("Already following: " + followerId + " -> " + followedId);
+        Follow follow = Follow.builder()
+                .follower(users.getReferenceById(followerId))
+                .followed(users.getReferenceById(followedId))
+                .build();
+        Follow saved;
+        try {
+            saved = follows.saveAndFlush(follow);
+        } catch (DataIntegrityViolationException ex) {
+            throw translate(ex, followerId, followedId);
         }
-        return follows.save(Follow.builder().follower(follower).followed(followed).build());
+        graph.follow(followerId, followedId, saved.getId());
+        timelines.backfill(followerId, followedId);
+        return saved;
     }
 
     @Transactional
     public void unfollow(Long followerId, Long followedId) {
-        User follower = users.findById(followerId)
-                .orElseThrow(() -> new NotFoundException("Follower user not found: id=" + followerId));
-        User followed = users.findById(followedId)
-                .orElseThrow(() -> new NotFoundException("Followed user not found: id=" + followedId));
+        if (follows.deleteByFollowerIdAndFollowedId(followerId, followedId) > 0) {
+            timelines.evict(followerId, followedId);
+            graph.unfollow(followerId, followedId);
+            return;
+        }
+        if (!users.existsById(followerId)) {
+            throw new NotFoundException(FOLLOWER_NOT_FOUND_ID + followerId);
+        }
+        if (!users.existsById(followedId)) {
+            throw new NotFoundException(FOLLOWED_NOT_FOUND_ID + followedId);
+        }
+    }
 
-        follows.findByFollowerAndFollowed(follower, followed)
-                .ifPresent(follows::delete);
+    /** Users {@code userId} follows with the relation ids, from the {@link FollowGraph}; must not be modified */
+    public FollowGraph.Edges listFollowing(Long userId) {
+        requireUser(userId);
+        return graph.followingEdges(userId);
     }
 
-    public List<Follow> listFollowing(Long userId) {
-        User user = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found: id=" + userId));
-        return follows.findAllByFollower(user);
+    /** Users following {@code userId} with the relation ids, from the {@link FollowGraph}; must not be modified */
+    public FollowGraph.Edges listFollowers(Long userId) {
+        requireUser(userId);
+        return graph.followerEdges(userId);
     }
 
-    public List<Follow> listFollowers(Long userId) {
-        User user = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found: id=" + userId));
-        return follows.findAllByFollowed(user);
+    /** findById rather than existsById: the row usually comes from the second-level cache */
+    private void requireUser(Long userId) {
+        if (users.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found: id=" + userId);
+        }
+    }
+
+    private RuntimeException translate(DataIntegrityViolationException ex, Long followerId, Long followedId) {
+        if (ConstraintViolations.isViolated(ex, Follow.UK_FOLLOWER_FOLLOWED, "follower_id", "followed_id")) {
+            return new ConflictException("Already following: " + followerId + " -> " + followedId);
+        }
+        if (ConstraintViolations.isViolated(ex, Follow.FK_FOLLOWER, "follower_id")) {
+            return new NotFoundException(FOLLOWER_NOT_FOUND_ID + followerId);
+        }
+        if (ConstraintViolations.isViolated(ex, Follow.FK_FOLLOWED, "followed_id")) {
+            return new NotFoundException(FOLLOWED_NOT_FOUND_ID + followedId);
+        }
+        return ex;
     }
 }
@@ -1,24 +1,48 @@
 package com.social_media_app.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 
+/**
+ * Issues and verifies HS256 tokens. The signing key and parser are built once (both are immutable
+ * and thread-safe); recently verified tokens are remembered by SHA-256 hash for a short TTL so a
+ * client reusing its token skips signature checking and claim parsing. A cached entry is never
+ * served past the token's own expiration.
+ */
 @Component
 public class JwtService {
-    private final byte[] key;
+    private final SecretKey key;
+    private final JwtParser parser;
     private final long ttlMin;
+    private final Cache<String, Verified> verified;
 
     public JwtService(@Value("${security.jwt.secret}") String secret,
-                      @Value("${security.jwt.ttl-min}") long ttlMin) {
-        this.key = secret.getBytes(StandardCharsets.UTF_8);
+                      @Value("${security.jwt.ttl-min}") long ttlMin,
+                      @Value("${security.jwt.verified-cache.max-size:10000}") long cacheSize,
+                      @Value("${security.jwt.verified-cache.ttl-sec:30}") long cacheTtlSec) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
         this.ttlMin = ttlMin;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSec))
+                .build();
     }
 
     public String generate(String subject) {
@@ -27,17 +51,31 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plus(ttlMin, ChronoUnit.MINUTES)))
-                .signWith(Keys.hmacShaKeyFor(key), Jwts.SIG.HS256)
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
     public String getSubject(String token) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(key))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        String hash = sha256(token);
+        Verified hit = verified.getIfPresent(hash);
+        if (hit != null && hit.expiresAt().isAfter(Instant.now())) {
+            return hit.subject();
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.MAX;
+        verified.put(hash, new Verified(claims.getSubject(), expiresAt));
+        return claims.getSubject();
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
 
+    private record Verified(String subject, Instant expiresAt) {
+    }
+}
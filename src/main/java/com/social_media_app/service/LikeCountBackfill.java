@@ -0,0 +1,42 @@
+package com.social_media_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration initializing {@code posts.like_count} from {@code post_likes} for posts liked before
+ * the column existed, which {@code ddl-auto} adds with 0 for every row. Only posts still at 0 that have
+ * likes are touched. It runs on a startup with {@code likes.counter.backfill-on-startup=true}, meant for
+ * the first deployment of the column before other instances take likes: a post whose first like is still
+ * buffered by another instance's {@link LikeCounter} would be counted twice. Later drift is left to
+ * {@link LikeCountReconciler}.
+ */
+@Component
+@ConditionalOnProperty(name = "likes.counter.backfill-on-startup", havingValue = "true")
+public class LikeCountBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCountBackfill.class);
+    private static final String BACKFILL_SQL = """
+            update posts set like_count = (select count(*) from post_likes l where l.post_id = posts.id)
+            where like_count = 0 and exists (select 1 from post_likes l where l.post_id = posts.id)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public LikeCountBackfill(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int updated = jdbc.update(BACKFILL_SQL);
+        if (updated > 0) {
+            log.info("Initialized like_count of {} posts from post_likes", updated);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.social_media_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corrects drift of {@code posts.like_count} from {@code post_likes}, e.g. deltas lost when an instance died
+ * with them still buffered in its {@link LikeCounter}. Every {@code likes.counter.reconcile-interval-ms}
+ * the posts of the last {@code likes.counter.reconcile-max-age-days} are compared with their like rows.
+ * <p>
+ * A difference is also what a delta in flight looks like, so only one seen unchanged on two consecutive
+ * runs is corrected; in-flight deltas are flushed within a second. The update only applies while the
+ * stored count is still the one read, so a concurrent flush, or another instance correcting the same post,
+ * wins and the post is looked at again next run.
+ */
+@Component
+@ConditionalOnProperty(name = "likes.counter.reconcile-enabled", havingValue = "true", matchIfMissing = true)
+public class LikeCountReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCountReconciler.class);
+    private static final String DRIFT_SQL = """
+            select id, like_count, actual from (
+                select p.id, p.like_count, (select count(*) from post_likes l where l.post_id = p.id) as actual
+                from posts p
+                where p.created_at >= ?
+            ) c
+            where like_count <> actual
+            """;
+    private static final String CORRECT_SQL = "update posts set like_count = ? where id = ? and like_count = ?";
+
+    private final JdbcTemplate jdbc;
+    private final Duration maxAge;
+    /** Drift found by the previous run, by post id; only touched by the scheduler thread */
+    private Map<Long, Drift> previous = Map.of();
+
+    public LikeCountReconciler(JdbcTemplate jdbc,
+                               @Value("${likes.counter.reconcile-max-age-days:7}") long maxAgeDays) {
+        this.jdbc = jdbc;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+    }
+
+    /** Returns the number of posts corrected */
+    @Scheduled(fixedDelayString = "${likes.counter.reconcile-interval-ms:600000}",
+            initialDelayString = "${likes.counter.reconcile-interval-ms:600000}")
+    public int reconcile() {
+        Map<Long, Drift> found = new HashMap<>();
+        jdbc.query(DRIFT_SQL, rs -> {
+            found.put(rs.getLong(1), new Drift(rs.getLong(2), rs.getLong(3)));
+        }, Timestamp.from(Instant.now().minus(maxAge)));
+
+        List<Object[]> batch = new ArrayList<>();
+        found.forEach((postId, drift) -> {
+            if (drift.equals(previous.get(postId))) {
+                batch.add(new Object[]{drift.actual(), postId, drift.stored()});
+            }
+        });
+        previous = found;
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        int corrected = 0;
+        for (int rows : jdbc.batchUpdate(CORRECT_SQL, batch)) {
+            corrected += Math.max(rows, 0);
+        }
+        log.info("Corrected like_count of {} posts from post_likes", corrected);
+        return corrected;
+    }
+
+    private record Drift(long stored, long actual) {
+    }
+}
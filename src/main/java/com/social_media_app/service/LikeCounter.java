@@ -0,0 +1,109 @@
+package com.social_media_app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind aggregation for {@code posts.like_count}.
+ * <p>
+ * Likes and unlikes only bump a striped in-memory {@link LongAdder} per post; the accumulated
+ * deltas are written with one JDBC batch every {@code likes.counter.flush-interval-ms}, so bursts
+ * on a viral post do not serialize on its row. Readers add the not yet flushed delta to the
+ * stored column, which makes the count eventually consistent across instances.
+ */
+@Component
+public class LikeCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCounter.class);
+    private static final String FLUSH_SQL = "update posts set like_count = like_count + ? where id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public LikeCounter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Counts a like once the surrounding transaction (if any) commits */
+    public void increment(Long postId) {
+        afterCommit(() -> add(postId, 1));
+    }
+
+    /** Counts an unlike once the surrounding transaction (if any) commits */
+    public void decrement(Long postId) {
+        afterCommit(() -> add(postId, -1));
+    }
+
+    /** Delta for {@code postId} not yet written to {@code posts.like_count} */
+    public long pending(Long postId) {
+        LongAdder adder = pending.get(postId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${likes.counter.flush-interval-ms:1000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> e : pending.entrySet()) {
+            Long postId = e.getKey();
+            LongAdder adder = e.getValue();
+            long delta = adder.sumThenReset();
+            // retire idle posts so the map only holds recently liked ones
+            if (delta == 0 && pending.remove(postId, adder)) {
+                delta = adder.sumThenReset();
+            }
+            if (delta != 0) {
+                batch.add(new Object[]{delta, postId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbc.batchUpdate(FLUSH_SQL, batch);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} like counter deltas, retrying on next run", batch.size(), ex);
+            batch.forEach(row -> add((Long) row[1], (Long) row[0]));
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void add(Long postId, long delta) {
+        LongAdder adder = pending.computeIfAbsent(postId, id -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(postId) != adder) {
+            // retired by a concurrent flush after the lookup: move whatever it still holds to the live adder
+            long late = adder.sumThenReset();
+            if (late != 0) add(postId, late);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,16 +1,23 @@
 package com.social_media_app.service;
 
 import com.social_media_app.exceptions.ConflictException;
+import com.social_media_app.exceptions.ConstraintViolations;
 import com.social_media_app.exceptions.NotFoundException;
-import com.social_media_app.model.Post;
 import com.social_media_app.model.PostLike;
-import com.social_media_app.model.User;
+import com.social_media_app.model.dto.LikeSummary;
 import com.social_media_app.repository.PostLikeRepository;
 import com.social_media_app.repository.PostRepository;
 import com.social_media_app.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @Transactional(readOnly = true)
 public class LikeService {
@@ -20,47 +27,97 @@ public class LikeService {
     private final PostLikeRepository likes;
     private final UserRepository users;
     private final PostRepository posts;
+    private final LikeCounter counter;
 
-    public LikeService(PostLikeRepository likes, UserRepository users, PostRepository posts) {
+    public LikeService(PostLikeRepository likes, UserRepository users, PostRepository posts, LikeCounter counter) {
         this.likes = likes;
         this.users = users;
         this.posts = posts;
+        this.counter = counter;
     }
 
+    /**
+     * Inserts against reference proxies and lets the unique / foreign-key constraints reject
+     * duplicates and unknown ids, instead of loading both entities and probing first.
+     */
     @Transactional
     public void like(Long userId, Long postId) {
-        User user = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException(USER_NOT_FOUND_ID + userId));
-        Post post = posts.findById(postId)
-                .orElseThrow(() -> new NotFoundException(POST_NOT_FOUND_ID + postId));
-
-        if (likes.existsByUserAndPost(user, post)) {
-            throw new ConflictException("Already liked");
+        PostLike like = PostLike.builder()
+                .user(users.getReferenceById(userId))
+                .post(posts.getReferenceById(postId))
+                .build();
+        try {
+            likes.saveAndFlush(like);
+        } catch (DataIntegrityViolationException ex) {
+            throw translate(ex, userId, postId);
         }
-        likes.save(PostLike.builder().user(user).post(post).build());
+        counter.increment(postId);
     }
 
     @Transactional
     public void unlike(Long userId, Long postId) {
-        User user = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException(USER_NOT_FOUND_ID + userId));
-        Post post = posts.findById(postId)
-                .orElseThrow(() -> new NotFoundException(POST_NOT_FOUND_ID + postId));
-
-        likes.deleteByUserAndPost(user, post);
+        if (likes.deleteByUserIdAndPostId(userId, postId) > 0) {
+            counter.decrement(postId);
+            return;
+        }
+        requireUserAndPost(userId, postId);
     }
 
+    /**
+     * Stored {@code posts.like_count} plus the delta not yet flushed by {@link LikeCounter}
+     */
     public long countLikes(Long postId) {
-        Post post = posts.findById(postId)
+        long stored = posts.findLikeCountById(postId)
                 .orElseThrow(() -> new NotFoundException(POST_NOT_FOUND_ID + postId));
-        return likes.countByPost(post);
+        return stored + counter.pending(postId);
+    }
+
+    /**
+     * Like counts and liked-by-{@code userId} flags for a batch of posts (e.g. one feed page),
+     * in the order of {@code postIds}. Unknown posts are skipped; a null or unknown user has liked nothing.
+     */
+    public List<LikeSummary> summarize(Long userId, List<Long> postIds) {
+        Map<Long, LikeSummary> byId = likes.summarize(userId, postIds).stream()
+                .collect(Collectors.toMap(LikeSummary::postId, Function.identity()));
+
+        return postIds.stream()
+                .distinct()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(s -> new LikeSummary(s.postId(), s.count() + counter.pending(s.postId()), s.liked()))
+                .toList();
     }
 
     public boolean isLiked(Long userId, Long postId) {
-        User user = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException(USER_NOT_FOUND_ID + userId));
-        Post post = posts.findById(postId)
-                .orElseThrow(() -> new NotFoundException(POST_NOT_FOUND_ID + postId));
-        return likes.existsByUserAndPost(user, post);
+        if (likes.existsByUserIdAndPostId(userId, postId)) {
+            return true;
+        }
+        requireUserAndPost(userId, postId);
+        return false;
+    }
+
+    /**
+     * Only reached on the miss path, to tell "not liked" apart from an unknown user or post
+     */
+    private void requireUserAndPost(Long userId, Long postId) {
+        if (!users.existsById(userId)) {
+            throw new NotFoundException(USER_NOT_FOUND_ID + userId);
+        }
+        if (!posts.existsById(postId)) {
+            throw new NotFoundException(POST_NOT_FOUND_ID + postId);
+        }
+    }
+
+    private RuntimeException translate(DataIntegrityViolationException ex, Long userId, Long postId) {
+        if (ConstraintViolations.isViolated(ex, PostLike.UK_USER_POST, "user_id", "post_id")) {
+            return new ConflictException("Already liked");
+        }
+        if (ConstraintViolations.isViolated(ex, PostLike.FK_USER, "user_id")) {
+            return new NotFoundException(USER_NOT_FOUND_ID + userId);
+        }
+        if (ConstraintViolations.isViolated(ex, PostLike.FK_POST, "post_id")) {
+            return new NotFoundException(POST_NOT_FOUND_ID + postId);
+        }
+        return ex;
     }
 }
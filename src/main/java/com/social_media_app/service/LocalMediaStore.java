@@ -0,0 +1,229 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link MediaStore} on this node's disk under {@code media.store.local.root}, for dev environments and
+ * single-node deployments. Writes go to a temp file and are moved into place atomically: multipart files
+ * are handed to the container, which moves its spooled copy there (or copies it file to file), and raw
+ * streams are copied in with {@link FileChannel#transferFrom}. The content type
+ * sits next to each object in a {@code .content-type} file. Downloads are served by {@code LocalMediaController}
+ * from URLs signed with HMAC-SHA256 over key and expiry, mirroring S3 presigned GETs.
+ */
+@Service
+@ConditionalOnProperty(name = "media.store.type", havingValue = "local")
+public class LocalMediaStore implements MediaStore {
+
+    private static final String CONTENT_TYPE_SUFFIX = ".content-type";
+    private static final long CHUNK = 8L * 1024 * 1024;
+
+    private final Path root;
+    private final String baseUrl;
+    private final SecretKeySpec urlKey;
+    private final long maxStreamBytes;
+
+    public LocalMediaStore(@Value("${media.store.local.root:./data/media}") Path root,
+                           @Value("${media.store.local.base-url:http://localhost:8080}") String baseUrl,
+                           @Value("${media.store.local.url-secret}") String urlSecret,
+                           @Value("${media.store.local.max-stream-bytes:1073741824}") long maxStreamBytes) throws IOException {
+        this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.urlKey = new SecretKeySpec(urlSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.maxStreamBytes = maxStreamBytes;
+    }
+
+    @Override
+    public String upload(String prefix, MultipartFile file) throws IOException {
+        String key = "%s/%s".formatted(prefix, UUID.randomUUID());
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            // consumes the spooled part: Tomcat renames its temp file into place rather than streaming it
+            file.transferTo(tmp.toFile());
+            commit(tmp, target, file.getContentType());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return key;
+    }
+
+    @Override
+    public String uploadStream(String prefix, InputStream in, String contentType) throws IOException {
+        String key = "%s/%s".formatted(prefix, UUID.randomUUID());
+        write(key, in, contentType, maxStreamBytes);
+        return key;
+    }
+
+    @Override
+    public void store(String key, byte[] data, String contentType) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            Files.write(tmp, data);
+            commit(tmp, target, contentType);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        return new FileRangeInputStream(FileChannel.open(path(key), StandardOpenOption.READ), offset, offset + length, true);
+    }
+
+    @Override
+    public Optional<StoredObject> head(String key) throws IOException {
+        Path file = path(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        Path type = contentTypeFile(file);
+        String contentType = Files.exists(type) ? Files.readString(type) : null;
+        long size = Files.size(file);
+        // objects are only ever replaced as a whole by an atomic move, so size + mtime identify the content
+        String eTag = "\"%x-%x\"".formatted(size, Files.getLastModifiedTime(file).toMillis());
+        return Optional.of(new StoredObject(contentType, size, eTag));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path file = path(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path file = path(key);
+        Files.deleteIfExists(contentTypeFile(file));
+        Files.deleteIfExists(file);
+    }
+
+    /** {@code <base-url>/api/media/files/<key>?expires=<epoch-seconds>&signature=<hmac>} */
+    @Override
+    public URL presignedUrl(String key, Duration ttl) {
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String url = "%s/api/media/files/%s?expires=%d&signature=%s"
+                .formatted(baseUrl, UriUtils.encodePath(key, StandardCharsets.UTF_8), expires, sign(key, expires));
+        try {
+            return URI.create(url).toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid media.store.local.base-url: " + baseUrl, e);
+        }
+    }
+
+    /** True when {@code signature} was issued by {@link #presignedUrl} for {@code key} and has not expired */
+    public boolean verify(String key, long expires, String signature) {
+        if (Instant.now().getEpochSecond() > expires) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(key, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** File backing {@code key}; keys that would resolve outside the root are rejected as not found */
+    public Path path(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root) || file.getFileName().toString().endsWith(CONTENT_TYPE_SUFFIX)) {
+            throw new NotFoundException("Media not found: key=" + key);
+        }
+        return file;
+    }
+
+    /** Copies {@code length} bytes of {@code key} from {@code position} to {@code out} with {@link FileChannel#transferTo} */
+    public void transferTo(String key, long position, long length, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ)) {
+            long end = position + length;
+            for (long pos = position; pos < end; ) {
+                long n = channel.transferTo(pos, end - pos, out);
+                if (n <= 0) {
+                    throw new NoSuchFileException(key, null, "truncated while reading");
+                }
+                pos += n;
+            }
+        }
+    }
+
+    private void write(String key, InputStream in, String contentType, long limit) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        ReadableByteChannel source = Channels.newChannel(in);
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                for (long n; (n = out.transferFrom(source, position, CHUNK)) > 0; ) {
+                    position += n;
+                    if (position > limit) {
+                        throw new MaxUploadSizeExceededException(limit);
+                    }
+                }
+            }
+            commit(tmp, target, contentType);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void commit(Path tmp, Path target, String contentType) throws IOException {
+        Path type = contentTypeFile(target);
+        if (contentType != null) {
+            Files.writeString(type, contentType);
+        } else {
+            Files.deleteIfExists(type);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path contentTypeFile(Path file) {
+        return file.resolveSibling(file.getFileName() + CONTENT_TYPE_SUFFIX);
+    }
+
+    private String sign(String key, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(urlKey);
+            byte[] signature = mac.doFinal((key + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.social_media_app.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.social_media_app.exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded copy of hot media objects on local disk, in front of the {@link MediaStore}, for the
+ * {@code GET /api/media/{key}} proxy. At most {@code media.cache.max-bytes} of content is kept; objects
+ * above {@code media.cache.max-entry-bytes} are streamed from the store instead, ranged reads included.
+ * Concurrent misses on the same key share one download. Stores that already keep objects on local disk are
+ * read in place, uncached. Files are opened before they are handed out, so an eviction that deletes one
+ * while it is being served cannot cut the response short. The cache is rebuilt empty on startup. Stats are
+ * published under {@code cache=media-disk}.
+ */
+@Component
+public class MediaDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaDiskCache.class);
+    private static final String SUFFIX = ".media";
+
+    private final MediaStore store;
+    private final Path dir;
+    private final long maxEntryBytes;
+    private final AsyncCache<String, Entry> entries;
+
+    public MediaDiskCache(MediaStore store,
+                          MeterRegistry registry,
+                          @Value("${media.cache.dir:${java.io.tmpdir}/social-media-cache}") Path dir,
+                          @Value("${media.cache.max-bytes:1073741824}") long maxBytes,
+                          @Value("${media.cache.max-entry-bytes:67108864}") long maxEntryBytes) throws IOException {
+        this.store = store;
+        this.dir = Files.createDirectories(dir);
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        clear(this.dir);
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> (int) entry.size())
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        deleteQuietly(entry.file());
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, entries.synchronous(), "media-disk");
+    }
+
+    /** Metadata and content source of {@code key}; fetched from the store on a miss */
+    public Entry get(String key) throws IOException {
+        CompletableFuture<Entry> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+        MediaStore.StoredObject head = store.head(key)
+                .orElseThrow(() -> new NotFoundException("Media not found: key=" + key));
+        var local = store.localPath(key);
+        if (local.isPresent()) {
+            return new Entry(key, local.get(), head);
+        }
+        if (head.size() > maxEntryBytes) {
+            return new Entry(key, null, head);
+        }
+        return join(entries.get(key, (k, executor) -> CompletableFuture.supplyAsync(() -> download(k, head), executor)));
+    }
+
+    /**
+     * The entry's bytes: the file when there is one, as an {@link OpenFile} the caller must close once the
+     * response is written, otherwise a stream from the store
+     */
+    public Resource resource(Entry entry) throws IOException {
+        if (entry.file() != null) {
+            return new OpenFile(entry, FileChannel.open(entry.file(), StandardOpenOption.READ));
+        }
+        return stored(entry, 0, entry.size());
+    }
+
+    /** {@code length} bytes from {@code offset} of an entry streamed from the store, fetched as just that range */
+    public Resource resource(Entry entry, long offset, long length) {
+        return stored(entry, offset, length);
+    }
+
+    private Resource stored(Entry entry, long offset, long length) {
+        return new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "media object " + entry.key();
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return length == entry.size() ? store.open(entry.key()) : store.open(entry.key(), offset, length);
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+        };
+    }
+
+    /** Runs pending evictions now; the files of evicted entries are deleted shortly after */
+    void cleanUp() {
+        entries.synchronous().cleanUp();
+    }
+
+    private Entry download(String key, MediaStore.StoredObject head) {
+        try {
+            // random names so a late eviction of a previous copy can never delete this one
+            Path file = dir.resolve(UUID.randomUUID() + SUFFIX);
+            Path tmp = dir.resolve(file.getFileName() + ".tmp");
+            try (InputStream in = store.open(key)) {
+                long copied = Files.copy(in, tmp);
+                if (copied != head.size()) {
+                    throw new IOException("Expected %d bytes of %s, got %d".formatted(head.size(), key, copied));
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return new Entry(key, file, head);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Entry join(CompletableFuture<Entry> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Only removes files this cache writes, in case {@code media.cache.dir} is shared */
+    private static void clear(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> f.getFileName().toString().endsWith(SUFFIX) || f.getFileName().toString().endsWith(SUFFIX + ".tmp"))
+                    .forEach(MediaDiskCache::deleteQuietly);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached media file {}", file, e);
+        }
+    }
+
+    /**
+     * A file opened for one response. Its streams share the channel, which keeps the content readable even
+     * after an eviction has deleted the file, until {@link #close}.
+     */
+    public static final class OpenFile extends AbstractResource implements Closeable {
+        private final Entry entry;
+        private final FileChannel channel;
+
+        private OpenFile(Entry entry, FileChannel channel) {
+            this.entry = entry;
+            this.channel = channel;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached media object " + entry.key();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new FileRangeInputStream(channel, 0, entry.size(), false);
+        }
+
+        @Override
+        public long contentLength() {
+            return entry.size();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close cached media file {}", entry.file(), e);
+            }
+        }
+    }
+
+    /** {@code file} is null when the object is streamed from the store */
+    public record Entry(String key, Path file, String contentType, long size, String eTag) {
+        Entry(String key, Path file, MediaStore.StoredObject head) {
+            this(key, file, head.contentType(), head.size(), head.eTag());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.ConstraintViolations;
+import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.model.User;
+import com.social_media_app.repository.MediaObjectRepository;
+import com.social_media_app.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Bookkeeping for stored media on the configured {@link MediaStore}. Every upload through the app is
+ * registered and deduplicated by content hash, each upload of known bytes adding a reference to the stored
+ * object; uploads that clients sent straight to S3 with presigned URLs are registered once their completion
+ * is reported.
+ */
+@Service
+public class MediaService {
+
+    private final MediaStore store;
+    private final ObjectProvider<S3StorageService> s3;
+    private final MediaObjectRepository media;
+    private final UserRepository users;
+    private final MediaVariantProcessor variants;
+    /** Runs the bookkeeping of async uploads; the S3 client's completion threads must not block on the database */
+    private final Executor registrations;
+    /** Largest object a presigned upload may leave behind; presigned part URLs cannot pin their length */
+    private final long maxUploadBytes;
+
+    public MediaService(MediaStore store, ObjectProvider<S3StorageService> s3, MediaObjectRepository media,
+                        UserRepository users, MediaVariantProcessor variants,
+                        @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor registrations,
+                        @Value("${cloud.aws.s3.max-stream-bytes:1073741824}") long maxUploadBytes) {
+        this.store = store;
+        this.s3 = s3;
+        this.media = media;
+        this.users = users;
+        this.variants = variants;
+        this.registrations = registrations;
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    public static String uploadPrefix(String username) {
+        return "uploads/" + username;
+    }
+
+    /**
+     * Stores {@code file} for {@code username} unless the same bytes are already stored, in which case the
+     * existing object gains a reference and the store is never called. The hash is computed by streaming
+     * the (already spooled) multipart file, so it is never held in memory as a whole.
+     */
+    public MediaObject upload(String username, MultipartFile file) throws IOException {
+        User owner = owner(username);
+        var hashing = new HashingInputStream(file.getInputStream());
+        try (hashing) {
+            hashing.transferTo(OutputStream.nullOutputStream());
+        }
+        String sha256 = hashing.sha256();
+        var existing = media.findBySha256(sha256);
+        if (existing.isPresent()) {
+            return reference(existing.get());
+        }
+        // the store may move the spooled file away, so the size read while hashing is the one recorded
+        String key = store.upload(uploadPrefix(username), file);
+        return register(owner, key, sha256, file.getContentType(), hashing.count());
+    }
+
+    /**
+     * Streams {@code in} into the store for {@code username}, hashing the bytes on the way through, and
+     * registers the object. A raw body can only be compared once it has been read, so if the same bytes are
+     * already stored the new copy is deleted again and the existing object gains a reference instead.
+     */
+    public MediaObject upload(String username, InputStream in, String contentType) throws IOException {
+        User owner = owner(username);
+        var hashing = new HashingInputStream(in);
+        String key = store.uploadStream(uploadPrefix(username), hashing, contentType);
+        String sha256 = hashing.sha256();
+        var existing = media.findBySha256(sha256);
+        if (existing.isPresent()) {
+            store.delete(key);
+            return reference(existing.get());
+        }
+        return register(owner, key, sha256, contentType, hashing.count());
+    }
+
+    /**
+     * Non-blocking variant of {@link #upload(String, MultipartFile)} on the async S3 client. The file is read
+     * into memory once for the parallel part upload and hashed there, so known content is never sent.
+     * The object is registered on the application task executor once the upload completes.
+     */
+    public CompletableFuture<MediaObject> uploadAsync(String username, MultipartFile file) throws IOException {
+        User owner = owner(username);
+        byte[] data = file.getBytes();
+        String sha256 = HexFormat.of().formatHex(sha256Digest().digest(data));
+        var existing = media.findBySha256(sha256);
+        if (existing.isPresent()) {
+            return CompletableFuture.completedFuture(reference(existing.get()));
+        }
+        return s3.getObject().uploadAsync(uploadPrefix(username), data, file.getContentType()).thenApplyAsync(key -> {
+            try {
+                return register(owner, key, sha256, file.getContentType(), data.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, registrations);
+    }
+
+    /**
+     * Records the freshly stored {@code key} of content not registered yet, or drops it in favour of an
+     * object with the same hash that a concurrent upload registered first
+     */
+    private MediaObject register(User owner, String key, String sha256, String contentType, long size) throws IOException {
+        MediaObject saved;
+        try {
+            saved = media.saveAndFlush(MediaObject.builder()
+                    .objectKey(key)
+                    .sha256(sha256)
+                    .owner(owner)
+                    .contentType(contentType)
+                    .size(size)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolated(e, MediaObject.UK_SHA256)) {
+                throw e;
+            }
+            // a concurrent upload of the same bytes registered first: keep theirs, drop our copy
+            store.delete(key);
+            return reference(media.findBySha256(sha256).orElseThrow(() -> e));
+        }
+        variants.submit(saved);
+        return saved;
+    }
+
+    /** Counts one more upload sharing {@code object} */
+    private MediaObject reference(MediaObject object) {
+        media.incrementRefCount(object.getId());
+        return object;
+    }
+
+    /**
+     * Completes the multipart upload when {@code uploadId} is given, checks the object exists and records
+     * it for {@code username}. Repeated calls for the same key return the already registered object.
+     * An object larger than the {@code declaredSize} it was presigned for, or than {@code max-stream-bytes},
+     * is deleted and rejected; a multipart upload whose parts already add up to more is aborted before it
+     * is assembled, as is one whose completion fails. Multipart completion requires the S3 store.
+     */
+    public MediaObject complete(String username, String key, String uploadId, List<CompletedPart> parts,
+                                long declaredSize) throws IOException {
+        if (!key.startsWith(uploadPrefix(username) + "/")) {
+            throw new NotFoundException("Upload not found: key=" + key);
+        }
+        var registered = media.findByObjectKey(key);
+        if (registered.isPresent()) {
+            return registered.get();
+        }
+        long limit = Math.min(declaredSize, maxUploadBytes);
+        if (uploadId != null) {
+            S3StorageService storage = s3.getObject();
+            try {
+                if (storage.uploadedBytes(key, uploadId) > limit) {
+                    throw new MaxUploadSizeExceededException(limit);
+                }
+                storage.completeMultipart(key, uploadId, parts);
+            } catch (RuntimeException e) {
+                storage.abortMultipart(key, uploadId);
+                throw e;
+            }
+        }
+        MediaStore.StoredObject head = store.head(key)
+                .orElseThrow(() -> new NotFoundException("Upload not found: key=" + key));
+        if (head.size() > limit) {
+            store.delete(key);
+            throw new MaxUploadSizeExceededException(limit);
+        }
+        User owner = owner(username);
+
+        MediaObject saved;
+        try {
+            saved = media.saveAndFlush(MediaObject.builder()
+                    .objectKey(key)
+                    .owner(owner)
+                    .contentType(head.contentType())
+                    .size(head.size())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolated(e, MediaObject.UK_OBJECT_KEY)) {
+                return media.findByObjectKey(key).orElseThrow(() -> e);
+            }
+            throw e;
+        }
+        variants.submit(saved);
+        return saved;
+    }
+
+    /** Presigned URL of {@code variant} of {@code key}, or of the original while the variants are not generated yet */
+    public URL presignedUrl(String key, MediaVariant variant, Duration ttl) {
+        MediaObject object = media.findByObjectKey(key)
+                .orElseThrow(() -> new NotFoundException("Media not found: key=" + key));
+
+        return object.isVariantsReady() ? store.presignedUrl(key, variant, ttl) : store.presignedUrl(key, ttl);
+    }
+
+    /**
+     * Only keys of registered objects, and of variants already generated for one, may be downloaded;
+     * anything else in the store is reported as not found
+     */
+    public void requireDownloadable(String key) {
+        if (media.findByObjectKey(key).isPresent()) {
+            return;
+        }
+        for (MediaVariant variant : MediaVariant.values()) {
+            String suffix = variant.keyFor("");
+            if (key.endsWith(suffix)
+                    && media.findByObjectKey(key.substring(0, key.length() - suffix.length()))
+                    .filter(MediaObject::isVariantsReady).isPresent()) {
+                return;
+            }
+        }
+        throw new NotFoundException("Media not found: key=" + key);
+    }
+
+    private User owner(String username) {
+        return users.findByUsername(username)
+                .orElseThrow(() -> new NotFoundException("User not found: username=" + username));
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Digests and counts the bytes as the store reads them */
+    private static final class HashingInputStream extends DigestInputStream {
+        private long count;
+
+        HashingInputStream(InputStream in) {
+            super(in, sha256Digest());
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long count() {
+            return count;
+        }
+
+        String sha256() {
+            return HexFormat.of().formatHex(getMessageDigest().digest());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.MediaVariant;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Where media bytes live. {@code media.store.type} selects the backend: {@code s3} ({@link S3StorageService},
+ * the default) or {@code local} ({@link LocalMediaStore}, files on this node's disk). Operations that only
+ * make sense against S3, like presigned uploads, stay on {@link S3StorageService}.
+ */
+public interface MediaStore {
+
+    /** Stores {@code file} under a fresh key below {@code prefix} and returns the key */
+    String upload(String prefix, MultipartFile file) throws IOException;
+
+    /** Stores everything readable from {@code in} under a fresh key below {@code prefix} without buffering it whole */
+    String uploadStream(String prefix, InputStream in, String contentType) throws IOException;
+
+    /** Stores {@code data} under the caller-chosen {@code key}, e.g. a derived variant of an existing object */
+    void store(String key, byte[] data, String contentType) throws IOException;
+
+    /** Streams the object's content; the caller must close it */
+    InputStream open(String key) throws IOException;
+
+    /** Streams {@code length} bytes of the object's content from {@code offset} on; the caller must close it */
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    /** Metadata of {@code key}, or empty when no such object has been stored */
+    Optional<StoredObject> head(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /** Time-limited URL a client can GET {@code key} from without further authentication */
+    URL presignedUrl(String key, Duration ttl);
+
+    /** Time-limited URL of a derived {@link MediaVariant} of {@code key}; the variant must have been generated */
+    default URL presignedUrl(String key, MediaVariant variant, Duration ttl) {
+        return presignedUrl(variant.keyFor(key), ttl);
+    }
+
+    /**
+     * File holding {@code key} on this node, for backends that keep objects on local disk; readers can then
+     * use it directly instead of copying it
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /** {@code eTag} is a strong validator of the content, quoted as in HTTP */
+    record StoredObject(String contentType, long size, String eTag) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.repository.MediaObjectRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the {@link MediaVariant} renditions of uploaded images off the request thread. The original
+ * is read back from the {@link MediaStore}, decoded once, scaled down per variant and stored as JPEG under
+ * {@link MediaVariant#keyFor}; the object is then flagged {@code variantsReady}. Images with more than
+ * {@code media.variants.max-pixels} pixels and non-images are left alone, as is anything submitted while
+ * the queue is full: until variants exist callers fall back to the original.
+ * Pool gauges are published as {@code executor.*{name=media-variants}}.
+ */
+@Component
+public class MediaVariantProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaVariantProcessor.class);
+
+    private final MediaStore store;
+    private final MediaObjectRepository media;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public MediaVariantProcessor(MediaStore store,
+                                 MediaObjectRepository media,
+                                 MeterRegistry registry,
+                                 @Value("${media.variants.threads:2}") int threads,
+                                 @Value("${media.variants.queue-depth:256}") int queueDepth,
+                                 @Value("${media.variants.max-pixels:50000000}") long maxPixels) {
+        this.store = store;
+        this.media = media;
+        this.maxPixels = maxPixels;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                r -> {
+                    Thread t = new Thread(r, "media-variants-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(registry, executor, "media-variants");
+    }
+
+    /** Queues variant generation for {@code object} if it is an image; returns immediately */
+    public void submit(MediaObject object) {
+        if (object.getContentType() == null || !object.getContentType().startsWith("image/")) {
+            return;
+        }
+        Long id = object.getId();
+        String key = object.getObjectKey();
+        try {
+            executor.execute(() -> process(id, key));
+        } catch (RejectedExecutionException e) {
+            log.warn("Variant queue full, serving {} without variants", key);
+        }
+    }
+
+    void process(Long id, String key) {
+        try {
+            BufferedImage original;
+            try (InputStream in = store.open(key)) {
+                original = decode(in, key);
+            }
+            if (original == null) {
+                return;
+            }
+            for (MediaVariant variant : MediaVariant.values()) {
+                byte[] jpeg = encodeJpeg(scale(original, variant.maxEdge()), variant.jpegQuality());
+                store.store(variant.keyFor(key), jpeg, "image/jpeg");
+            }
+            media.markVariantsReady(id);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate variants of {}", key, e);
+        }
+    }
+
+    /** Checks the header dimensions before decoding so oversized images never reach the heap */
+    private BufferedImage decode(InputStream in, String key) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                log.debug("{} is not a decodable image, skipping variants", key);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("{} has {} pixels (limit {}), skipping variants", key, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fits {@code src} into {@code maxEdge} (never upscaling) on an opaque RGB canvas. Large reductions
+     * halve repeatedly first, since a single bilinear pass would skip most source pixels and alias.
+     */
+    static BufferedImage scale(BufferedImage src, int maxEdge) {
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(src.getWidth(), src.getHeight()));
+        int width = Math.max(1, (int) Math.round(src.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(src.getHeight() * factor));
+
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current == src || current.getWidth() != width || current.getHeight() != height) {
+            current = draw(current, width, height);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage src, int width, int height) {
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,18 +1,27 @@
 package com.social_media_app.service;
 
 import com.social_media_app.exceptions.NotFoundException;
-import com.social_media_app.model.Follow;
 import com.social_media_app.model.Post;
 import com.social_media_app.model.User;
-import com.social_media_app.repository.FollowRepository;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.model.dto.PostView;
 import com.social_media_app.repository.PostRepository;
 import com.social_media_app.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -20,12 +29,17 @@ public class PostService {
 
     private final PostRepository posts;
     private final UserRepository users;
-    private final FollowRepository follows;
+    private final TimelineService timelines;
+    private final FeedMergeEngine feeds;
+    private final LikeCounter likeCounter;
 
-    public PostService(PostRepository posts, UserRepository users, FollowRepository follows) {
+    public PostService(PostRepository posts, UserRepository users, TimelineService timelines,
+                       FeedMergeEngine feeds, LikeCounter likeCounter) {
         this.posts = posts;
         this.users = users;
-        this.follows = follows;
+        this.timelines = timelines;
+        this.feeds = feeds;
+        this.likeCounter = likeCounter;
     }
 
     @Transactional
@@ -37,7 +51,9 @@ public class PostService {
                 .title(title)
                 .body(body)
                 .build();
-        return posts.save(post);
+        Post saved = posts.save(post);
+        timelines.fanOut(saved);
+        return saved;
     }
 
     public Post getById(Long id) {
@@ -52,18 +68,95 @@ public class PostService {
     }
 
     /**
-     * Feed = posts of people I follow, newest first
+     * Keyset listing: up to {@code size} posts of the author older than {@code before} (newest first when null)
+     */
+    public Slice<Post> listByAuthor(Long authorId, PostCursor before, int size) {
+        if (!users.existsById(authorId)) {
+            throw new NotFoundException("Author not found: id=" + authorId);
+        }
+        PostCursor from = before != null ? before : PostCursor.NEWEST;
+        List<Post> rows = posts.findByAuthorIdBefore(authorId, from.createdAt(), from.id(), Limit.of(size + 1));
+
+        return toSlice(rows, size);
+    }
+
+    /**
+     * Feed = posts of people I follow, newest first.
+     * Regular authors are read from the materialized timeline; posts of celebrity authors
+     * (not fanned out on write) are pulled per author and k-way merged in by {@link FeedMergeEngine}.
      */
     public Page<Post> feedFor(Long userId, Pageable pageable) {
-        User me = users.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found: id=" + userId));
-        List<Follow> following = follows.findAllByFollower(me);
-        List<Long> authorIds = following.stream()
-                .map(f -> f.getFollowed().getId())
+        if (!users.existsById(userId)) {
+            throw new NotFoundException("User not found: id=" + userId);
+        }
+        List<Long> pulledAuthorIds = timelines.pulledAuthorIds(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return timelines.read(userId, pulledAuthorIds, pageable);
+        }
+
+        int offset = (int) pageable.getOffset();
+        List<Post> head = feeds.merge(timelineOf(userId, pulledAuthorIds), pulledAuthorIds,
+                PostCursor.NEWEST, offset + pageable.getPageSize());
+        List<Post> page = head.subList(Math.min(offset, head.size()), head.size());
+        long total = timelines.count(userId, pulledAuthorIds) + posts.countByAuthorIdIn(pulledAuthorIds);
+
+        return new PageImpl<>(page, pageable, total);
+    }
+
+    /**
+     * Keyset variant of {@link #feedFor(Long, Pageable)}: no offset scan and no count query
+     */
+    public Slice<Post> feedFor(Long userId, PostCursor before, int size) {
+        if (!users.existsById(userId)) {
+            throw new NotFoundException("User not found: id=" + userId);
+        }
+        PostCursor from = before != null ? before : PostCursor.NEWEST;
+        List<Long> pulledAuthorIds = timelines.pulledAuthorIds(userId);
+        List<Post> rows = feeds.merge(timelineOf(userId, pulledAuthorIds), pulledAuthorIds, from, size + 1);
+
+        return toSlice(rows, size);
+    }
+
+    /**
+     * {@link #feedFor(Long, PostCursor, int)} with author username, like count and liked-by-{@code userId}
+     * resolved by one projection query for the whole slice instead of lazy loads per post
+     */
+    public Slice<PostView> hydratedFeedFor(Long userId, PostCursor before, int size) {
+        Slice<Post> slice = feedFor(userId, before, size);
+        if (!slice.hasContent()) {
+            return new SliceImpl<>(List.of(), slice.getPageable(), false);
+        }
+
+        List<Long> ids = slice.map(Post::getId).getContent();
+        Map<Long, PostView> byId = posts.findViewsByIdIn(ids, userId).stream()
+                .collect(Collectors.toMap(PostView::id, Function.identity()));
+        List<PostView> views = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::withPendingLikes)
                 .toList();
-        if (authorIds.isEmpty()) {
-            return Page.empty(pageable);
+
+        return new SliceImpl<>(views, slice.getPageable(), slice.hasNext());
+    }
+
+    private PostView withPendingLikes(PostView v) {
+        long pending = likeCounter.pending(v.id());
+        if (pending == 0) {
+            return v;
         }
-        return posts.findAllByAuthorIdInOrderByCreatedAtDesc(authorIds, pageable);
+        return new PostView(v.id(), v.authorId(), v.authorUsername(), v.title(), v.body(), v.createdAt(),
+                v.likeCount() + pending, v.liked());
+    }
+
+    private FeedMergeEngine.PostSource timelineOf(Long userId, List<Long> pulledAuthorIds) {
+        return (before, limit) -> timelines.readBefore(userId, pulledAuthorIds, before, limit);
+    }
+
+    /** {@code rows} holds up to size + 1 posts; the extra one only tells whether there is a next slice */
+    private static Slice<Post> toSlice(List<Post> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<Post> content = hasNext ? rows.subList(0, size) : rows;
+
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
     }
 }
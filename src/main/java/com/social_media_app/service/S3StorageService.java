@@ -1,35 +1,122 @@
 package com.social_media_app.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.Part;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/** The default {@link MediaStore}; also hosts the S3-only upload paths (async multipart, presigned uploads) */
 @Service
-public class S3StorageService {
+@ConditionalOnProperty(name = "media.store.type", havingValue = "s3", matchIfMissing = true)
+public class S3StorageService implements MediaStore {
+
+    private static final Logger log = LoggerFactory.getLogger(S3StorageService.class);
 
     private final S3Client s3;
+    private final S3AsyncClient s3Async;
     private final S3Presigner presigner;
+    private final AwsCredentialsProvider credentials;
     private final String bucket;
+    private final int partSize;
+    private final long maxStreamBytes;
+    private final int asyncPartSize;
+    private final DistributionSummary partThroughput;
+    private final Duration presignMargin;
+    private final Duration staleUploadAge;
+    private final Cache<PresignKey, SignedUrl> presigned;
 
     public S3StorageService(S3Client s3,
+                            S3AsyncClient s3Async,
                             S3Presigner presigner,
-                            @Value("${cloud.aws.s3.bucket}") String bucket) {
+                            AwsCredentialsProvider credentials,
+                            MeterRegistry registry,
+                            @Value("${cloud.aws.s3.bucket}") String bucket,
+                            @Value("${cloud.aws.s3.part-size-bytes:8388608}") int partSize,
+                            @Value("${cloud.aws.s3.max-stream-bytes:1073741824}") long maxStreamBytes,
+                            @Value("${cloud.aws.s3.async-part-size-bytes:5242880}") int asyncPartSize,
+                            @Value("${cloud.aws.s3.presign-cache.max-size:10000}") long presignCacheSize,
+                            @Value("${cloud.aws.s3.presign-cache.safety-margin-sec:300}") long presignMarginSec,
+                            @Value("${cloud.aws.s3.stale-uploads.max-age-hours:24}") long staleUploadAgeHours) {
         this.s3 = s3;
+        this.s3Async = s3Async;
         this.presigner = presigner;
+        this.credentials = credentials;
         this.bucket = bucket;
+        this.partSize = partSize;
+        this.maxStreamBytes = maxStreamBytes;
+        this.asyncPartSize = asyncPartSize;
+        this.partThroughput = DistributionSummary.builder("s3.upload.part.throughput")
+                .description("Bytes per second achieved by each part of a parallel multipart upload")
+                .baseUnit("bytes_per_second")
+                .register(registry);
+        this.presignMargin = Duration.ofSeconds(presignMarginSec);
+        this.staleUploadAge = Duration.ofHours(staleUploadAgeHours);
+        this.presigned = Caffeine.newBuilder()
+                .maximumSize(presignCacheSize)
+                .expireAfter(Expiry.creating((PresignKey k, SignedUrl signed) -> {
+                    Duration left = Duration.between(Instant.now(), signed.expiresAt()).minus(presignMargin);
+                    return left.isNegative() ? Duration.ZERO : left;
+                }))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, presigned, "presigned-urls");
     }
 
+    @Override
     public String upload(String prefix, MultipartFile file) throws IOException {
         String key = "%s/%s".formatted(prefix, UUID.randomUUID());
         PutObjectRequest put = PutObjectRequest.builder()
@@ -43,13 +130,347 @@ public class S3StorageService {
         return key;
     }
 
+    /**
+     * Pipes {@code in} into S3 in fixed-size parts without spooling it to disk; heap use is one
+     * {@code part-size-bytes} buffer per upload. Bodies shorter than one part go out as a single PUT.
+     * The multipart upload is aborted if reading, uploading or the size limit fails.
+     */
+    @Override
+    public String uploadStream(String prefix, InputStream in, String contentType) throws IOException {
+        String key = "%s/%s".formatted(prefix, UUID.randomUUID());
+        byte[] buffer = new byte[partSize];
+
+        int n = in.readNBytes(buffer, 0, partSize);
+        if (n < partSize) {
+            PutObjectRequest put = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+            s3.putObject(put, body(buffer, n));
+            return key;
+        }
+
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long total = 0;
+            for (int partNumber = 1; n > 0; partNumber++) {
+                total += n;
+                if (total > maxStreamBytes) {
+                    throw new MaxUploadSizeExceededException(maxStreamBytes);
+                }
+                UploadPartRequest part = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) n)
+                        .build();
+                String eTag = s3.uploadPart(part, body(buffer, n)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                n = in.readNBytes(buffer, 0, partSize);
+            }
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            return key;
+        } catch (IOException | RuntimeException e) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking upload: files larger than {@code async-part-size-bytes} are split into parts that
+     * are all uploaded concurrently through {@link S3AsyncClient}; the caller's thread returns as soon
+     * as the parts are queued. Each part's throughput is recorded in {@code s3.upload.part.throughput}.
+     * {@code bytes} (bounded by {@code spring.servlet.multipart.max-file-size}) are sliced into parts without copying.
+     */
+    public CompletableFuture<String> uploadAsync(String prefix, byte[] bytes, String contentType) {
+        String key = "%s/%s".formatted(prefix, UUID.randomUUID());
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        int size = data.remaining();
+
+        if (size <= asyncPartSize) {
+            PutObjectRequest put = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+            return s3Async.putObject(put, AsyncRequestBody.fromByteBufferUnsafe(data)).thenApply(r -> key);
+        }
+
+        var create = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        return s3Async.createMultipartUpload(create).thenCompose(created -> {
+            String uploadId = created.uploadId();
+            List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            for (int offset = 0, partNumber = 1; offset < size; offset += asyncPartSize, partNumber++) {
+                parts.add(uploadPartAsync(key, uploadId, partNumber, data.slice(offset, Math.min(asyncPartSize, size - offset))));
+            }
+            return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                    .thenCompose(done -> s3Async.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(CompletedMultipartUpload.builder()
+                                    .parts(parts.stream().map(CompletableFuture::join).toList())
+                                    .build())
+                            .build()))
+                    .thenApply(completed -> key)
+                    .exceptionallyCompose(failure -> s3Async.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                    .bucket(bucket)
+                                    .key(key)
+                                    .uploadId(uploadId)
+                                    .build())
+                            .handle((aborted, abortFailure) -> {
+                                throw failure instanceof CompletionException ce ? ce : new CompletionException(failure);
+                            }));
+        });
+    }
+
+    private CompletableFuture<CompletedPart> uploadPartAsync(String key, String uploadId, int partNumber, ByteBuffer slice) {
+        int length = slice.remaining();
+        UploadPartRequest part = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) length)
+                .build();
+        long start = System.nanoTime();
+        return s3Async.uploadPart(part, AsyncRequestBody.fromByteBufferUnsafe(slice)).thenApply(response -> {
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            partThroughput.record(length / seconds);
+            log.debug("Uploaded part {} of {} ({} bytes) at {} KB/s", partNumber, key, length, Math.round(length / seconds / 1024));
+            return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+        });
+    }
+
+    /**
+     * Lets the client upload {@code size} bytes straight to S3 under a fresh key below {@code prefix}.
+     * Up to one {@code part-size-bytes} part it is a single presigned PUT whose signature pins the
+     * content type and length; larger objects get a multipart upload with one presigned URL per part,
+     * to be finished with {@link #completeMultipart}. Sizes above {@code max-stream-bytes} are rejected.
+     */
+    public PresignedUpload presignUpload(String prefix, String contentType, long size, Duration ttl) {
+        if (size > maxStreamBytes) {
+            throw new MaxUploadSizeExceededException(maxStreamBytes);
+        }
+        String key = "%s/%s".formatted(prefix, UUID.randomUUID());
+
+        if (size <= partSize) {
+            var put = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(size)
+                    .build();
+            URL url = presigner.presignPutObject(PutObjectPresignRequest.builder()
+                    .signatureDuration(ttl)
+                    .putObjectRequest(put)
+                    .build()).url();
+            return new PresignedUpload(key, null, size, List.of(url));
+        }
+
+        String uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        List<URL> urls = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            var part = UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build();
+            urls.add(presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                    .signatureDuration(ttl)
+                    .uploadPartRequest(part)
+                    .build()).url());
+        }
+        return new PresignedUpload(key, uploadId, partSize, urls);
+    }
+
+    /** Finishes a multipart upload started by {@link #presignUpload} with the ETags the client got back per part */
+    public void completeMultipart(String key, String uploadId, List<CompletedPart> parts) {
+        s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(parts.stream().sorted(Comparator.comparing(CompletedPart::partNumber)).toList())
+                        .build())
+                .build());
+    }
+
+    /** Total size of the parts uploaded so far to a multipart upload started by {@link #presignUpload} */
+    public long uploadedBytes(String key, String uploadId) {
+        return s3.listPartsPaginator(ListPartsRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build())
+                .parts().stream()
+                .mapToLong(Part::size)
+                .sum();
+    }
+
+    /** Discards a multipart upload and its parts; one that is already completed or aborted is left alone */
+    public void abortMultipart(String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (NoSuchUploadException e) {
+            log.debug("Multipart upload {} of {} is already gone", uploadId, key);
+        }
+    }
+
+    /**
+     * Aborts multipart uploads started more than {@code stale-uploads.max-age-hours} ago, i.e. presigned
+     * uploads the client never completed; S3 keeps (and bills) their parts until then. Returns how many
+     * were aborted. Redundant with an {@code AbortIncompleteMultipartUpload} lifecycle rule on the bucket,
+     * which can then be used instead by setting {@code stale-uploads.max-age-hours} to 0.
+     */
+    @Scheduled(fixedDelayString = "${cloud.aws.s3.stale-uploads.sweep-interval-ms:3600000}",
+            initialDelayString = "${cloud.aws.s3.stale-uploads.sweep-interval-ms:3600000}")
+    public int abortStaleUploads() {
+        if (staleUploadAge.isZero()) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(staleUploadAge);
+        List<MultipartUpload> stale = s3.listMultipartUploadsPaginator(ListMultipartUploadsRequest.builder()
+                        .bucket(bucket)
+                        .build())
+                .uploads().stream()
+                .filter(upload -> upload.initiated().isBefore(cutoff))
+                .toList();
+        for (MultipartUpload upload : stale) {
+            abortMultipart(upload.key(), upload.uploadId());
+        }
+        if (!stale.isEmpty()) {
+            log.info("Aborted {} multipart uploads started before {}", stale.size(), cutoff);
+        }
+        return stale.size();
+    }
+
+    @Override
+    public void store(String key, byte[] data, String contentType) {
+        PutObjectRequest put = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        s3.putObject(put, RequestBody.fromBytes(data));
+    }
+
+    /** Closing the stream releases the pooled HTTP connection */
+    @Override
+    public InputStream open(String key) {
+        return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    /** A ranged GET, so only the requested bytes leave the bucket */
+    @Override
+    public InputStream open(String key, long offset, long length) {
+        return s3.getObject(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=%d-%d".formatted(offset, offset + length - 1))
+                .build());
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public Optional<StoredObject> head(String key) {
+        try {
+            var head = s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return Optional.of(new StoredObject(head.contentType(), head.contentLength(), head.eTag()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /** Reads straight from the reused buffer; RequestBody.fromBytes would copy it */
+    private static RequestBody body(byte[] buffer, int length) {
+        return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length);
+    }
+
+    /**
+     * Presigned GET URL, reused from cache until {@code safety-margin-sec} before it expires, so
+     * rendering the same media repeatedly does not re-sign it. TTLs within the margin are always signed fresh.
+     * A URL signed with temporary credentials (STS, instance or task role) stops working when they expire,
+     * so that is when it expires if it comes first.
+     */
+    @Override
     public URL presignedUrl(String key, Duration ttl) {
-        var get = GetObjectRequest.builder().bucket(bucket).key(key).build();
+        if (ttl.compareTo(presignMargin) <= 0) {
+            return sign(key, ttl).url();
+        }
+        return presigned.get(new PresignKey(key, ttl), k -> sign(k.key(), k.ttl())).url();
+    }
+
+    /** Signs with credentials resolved here rather than by the presigner, so their expiration is the one that applies */
+    private SignedUrl sign(String key, Duration ttl) {
+        AwsCredentials signing = credentials.resolveCredentials();
+        var get = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .overrideConfiguration(o -> o.credentialsProvider(StaticCredentialsProvider.create(signing)))
+                .build();
         var pre = GetObjectPresignRequest.builder()
                 .signatureDuration(ttl)
                 .getObjectRequest(get)
                 .build();
 
-        return presigner.presignGetObject(pre).url();
+        Instant expiresAt = Instant.now().plus(ttl);
+        if (signing instanceof AwsSessionCredentials session && session.expirationTime().isPresent()
+                && session.expirationTime().get().isBefore(expiresAt)) {
+            expiresAt = session.expirationTime().get();
+        }
+        return new SignedUrl(presigner.presignGetObject(pre).url(), expiresAt);
+    }
+
+    private record PresignKey(String key, Duration ttl) {
+    }
+
+    private record SignedUrl(URL url, Instant expiresAt) {
+    }
+
+    /**
+     * Where and how to upload {@code key}: a single PUT URL when {@code uploadId} is null, otherwise
+     * one URL per part, each covering {@code partSize} bytes (the last one the remainder).
+     */
+    public record PresignedUpload(String key, String uploadId, long partSize, List<URL> urls) {
     }
 }
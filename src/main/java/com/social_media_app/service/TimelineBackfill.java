@@ -0,0 +1,43 @@
+package com.social_media_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One-off migration filling {@code timeline_entries} for follows and posts that predate fan-out on write,
+ * which would otherwise never show up in a feed: posts of the last {@code feed.backfill.max-age-days} are
+ * pushed to every follower that does not have them yet. It scans all recent posts against all follows, so
+ * it only runs on a startup with {@code feed.backfill.enabled=true}, once after upgrading a database.
+ * Existing entries are skipped, so a repeated run inserts nothing.
+ */
+@Component
+@ConditionalOnProperty(name = "feed.backfill.enabled", havingValue = "true")
+public class TimelineBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TimelineBackfill.class);
+
+    private final TimelineService timeline;
+    private final Duration maxAge;
+
+    public TimelineBackfill(TimelineService timeline,
+                            @Value("${feed.backfill.max-age-days:30}") long maxAgeDays) {
+        this.timeline = timeline;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        int inserted = timeline.backfillSince(Instant.now().minus(maxAge));
+        log.info("Timeline backfill inserted {} entries in {} ms", inserted,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+}
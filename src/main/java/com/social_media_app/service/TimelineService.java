@@ -0,0 +1,165 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.repository.FollowRepository;
+import com.social_media_app.repository.TimelineEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fan-out-on-write home timelines: every new post is copied into the timeline of each
+ * follower of its author, so the pushed part of a feed is one range scan over the reader's entries.
+ * <p>
+ * Authors with at least {@code feed.fanout.celebrity-threshold} followers are not pushed;
+ * their posts are pulled and merged at read time (see {@link PostService#feedFor}), which takes the
+ * reader's followed celebrities from the in-memory {@link FollowGraph}. New follows, and an author who
+ * drops below the threshold, get the posts of the last {@code feed.backfill.max-age-days} pushed.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TimelineService {
+
+    private final TimelineEntryRepository timeline;
+    private final FollowGraph graph;
+    private final FollowRepository follows;
+    private final long celebrityThreshold;
+    private final long celebrityRecheckMargin;
+    private final Duration backfillMaxAge;
+
+    public TimelineService(TimelineEntryRepository timeline,
+                           FollowGraph graph,
+                           FollowRepository follows,
+                           @Value("${feed.fanout.celebrity-threshold:10000}") long celebrityThreshold,
+                           @Value("${feed.fanout.celebrity-recheck-margin:1000}") long celebrityRecheckMargin,
+                           @Value("${feed.backfill.max-age-days:30}") long backfillMaxAgeDays) {
+        this.timeline = timeline;
+        this.graph = graph;
+        this.follows = follows;
+        this.celebrityThreshold = celebrityThreshold;
+        this.celebrityRecheckMargin = celebrityRecheckMargin;
+        this.backfillMaxAge = Duration.ofDays(backfillMaxAgeDays);
+    }
+
+    @Transactional
+    public int fanOut(Post post) {
+        if (isCelebrity(post.getAuthor().getId())) {
+            return 0;
+        }
+        return timeline.fanOut(post.getId());
+    }
+
+    /**
+     * Called after a new follow relation is stored: posts of the followed user from the last
+     * {@code feed.backfill.max-age-days} become visible, so the insert stays bounded however much they wrote
+     */
+    @Transactional
+    public int backfill(Long followerId, Long followedId) {
+        if (isCelebrity(followedId)) {
+            return 0;
+        }
+        return timeline.backfill(followerId, followedId, Instant.now().minus(backfillMaxAge));
+    }
+
+    /**
+     * Pushes posts newer than {@code since} into every follower's timeline where missing, skipping
+     * celebrity authors; see {@link TimelineBackfill}
+     */
+    @Transactional
+    public int backfillSince(Instant since) {
+        return timeline.backfillSince(since, graph.withFollowersAtLeast(celebrityThreshold));
+    }
+
+    /**
+     * Called after a follow relation is removed. When this unfollow takes the author below the celebrity
+     * threshold, their recent posts were pulled so far and are pushed now. The crossing is decided from the
+     * follower count in the database after the delete, not from the graph, which applies the unfollow only
+     * after commit and may lag changes made through other instances.
+     */
+    @Transactional
+    public int evict(Long followerId, Long followedId) {
+        int evicted = timeline.deleteByOwnerIdAndAuthorId(followerId, followedId);
+        long followers = follows.countByFollowedId(followedId);
+        if (followers < celebrityThreshold && followers + 1 >= celebrityThreshold) {
+            timeline.backfillAuthor(followedId, Instant.now().minus(backfillMaxAge));
+        }
+        return evicted;
+    }
+
+    /** Whether posts of {@code authorId} are pulled at read time rather than pushed; see {@link #celebritiesAmong} */
+    public boolean isCelebrity(Long authorId) {
+        return !celebritiesAmong(new long[]{authorId}).isEmpty();
+    }
+
+    /**
+     * Followed authors whose posts are not pushed and have to be pulled at read time
+     */
+    public List<Long> pulledAuthorIds(Long userId) {
+        return celebritiesAmong(graph.following(userId));
+    }
+
+    /**
+     * The one decision between push and pull, shared by fan-out and feed reads so that a post skipped by
+     * one is always picked up by the other. An in-memory count less than {@code celebrity-recheck-margin}
+     * away from the threshold is recounted in the database, all such authors in one query: the graph may
+     * miss up to a refresh interval of follows made through other instances.
+     */
+    private List<Long> celebritiesAmong(long[] authorIds) {
+        List<Long> celebrities = new ArrayList<>();
+        List<Long> nearThreshold = new ArrayList<>();
+        for (long authorId : authorIds) {
+            long followers = graph.followerCount(authorId);
+            if (Math.abs(followers - celebrityThreshold) < celebrityRecheckMargin) {
+                nearThreshold.add(authorId);
+            } else if (followers >= celebrityThreshold) {
+                celebrities.add(authorId);
+            }
+        }
+        if (!nearThreshold.isEmpty()) {
+            celebrities.addAll(follows.findFollowedIdsHavingFollowersAtLeast(nearThreshold, celebrityThreshold));
+        }
+        return celebrities;
+    }
+
+    /**
+     * Pushed part of the feed. Entries of {@code pulledAuthorIds} are skipped: they may have been pushed
+     * before the author crossed the threshold and are returned by the pull side instead.
+     */
+    public Page<Post> read(Long userId, Collection<Long> pulledAuthorIds, Pageable pageable) {
+        if (pulledAuthorIds.isEmpty()) {
+            return timeline.findPostsByOwnerId(userId, pageable);
+        }
+        return timeline.findPostsByOwnerIdExcludingAuthors(userId, pulledAuthorIds, pageable);
+    }
+
+    /**
+     * Number of pushed posts in the feed of {@code userId}, excluding {@code pulledAuthorIds}
+     */
+    public long count(Long userId, Collection<Long> pulledAuthorIds) {
+        if (pulledAuthorIds.isEmpty()) {
+            return timeline.countByOwnerId(userId);
+        }
+        return timeline.countByOwnerIdExcludingAuthors(userId, pulledAuthorIds);
+    }
+
+    /**
+     * Keyset variant of {@link #read(Long, Collection, Pageable)}: up to {@code limit} pushed posts older than {@code before}
+     */
+    public List<Post> readBefore(Long userId, Collection<Long> pulledAuthorIds, PostCursor before, int limit) {
+        if (pulledAuthorIds.isEmpty()) {
+            return timeline.findPostsByOwnerIdBefore(userId, before.createdAt(), before.id(), Limit.of(limit));
+        }
+        return timeline.findPostsByOwnerIdExcludingAuthorsBefore(
+                userId, pulledAuthorIds, before.createdAt(), before.id(), Limit.of(limit));
+    }
+}
@@ -0,0 +1,81 @@
+package com.social_media_app.benchmark;
+
+import com.social_media_app.service.JwtService;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second: the old per-call parser/key construction, a parser built once (what
+ * {@link JwtService} verifies with on a cache miss) and {@link JwtService} with its verified-token cache.
+ * <p>
+ * Run with {@code mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.social_media_app.benchmark.JwtServiceBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "change-me-please-change-me-32chars-min";
+
+    private byte[] rawKey;
+    private JwtParser parser;
+    private JwtService cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        rawKey = SECRET.getBytes(StandardCharsets.UTF_8);
+        parser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(rawKey)).build();
+        cached = new JwtService(SECRET, 60, 10_000, 30);
+        token = cached.generate("alice");
+    }
+
+    /** What getSubject did before: a fresh key and parser per call */
+    @Benchmark
+    public String perCallParser() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(rawKey))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    /** Signature check alone, without the token hashing a cache lookup costs */
+    @Benchmark
+    public String prebuiltParser() {
+        return parser.parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public String prebuiltParserWithCache() {
+        return cached.getSubject(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
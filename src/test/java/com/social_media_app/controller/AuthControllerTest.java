@@ -3,6 +3,7 @@ package com.social_media_app.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.social_media_app.config.SecurityConfig;
 import com.social_media_app.exceptions.GlobalExceptionHandler;
+import com.social_media_app.exceptions.ServiceUnavailableException;
 import com.social_media_app.model.dto.RegisterRequest;
 import com.social_media_app.model.dto.UserResponse;
 import com.social_media_app.security.JwtFilter;
@@ -27,6 +28,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -99,4 +101,19 @@ class AuthControllerTest {
 
         verify(authService, times(1)).register(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void register_hashingSaturated_mappedTo503_withRetryAfter() throws Exception {
+        var req = new RegisterRequest("alex", "a@a.com", "secret123");
+
+        when(authService.register(any()))
+                .thenThrow(new ServiceUnavailableException("Too many concurrent authentication requests"));
+
+        mvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.detail").value("Too many concurrent authentication requests"));
+    }
+}
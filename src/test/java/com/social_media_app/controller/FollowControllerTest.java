@@ -8,6 +8,7 @@ import com.social_media_app.exceptions.NotFoundException;
 import com.social_media_app.model.Follow;
 import com.social_media_app.model.User;
 import com.social_media_app.security.JwtFilter;
+import com.social_media_app.service.FollowGraph;
 import com.social_media_app.service.FollowService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,7 +20,6 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -131,32 +131,25 @@ class FollowControllerTest {
 
     @Test
     void listFollowing_returnsArray() throws Exception {
-        User alice = User.builder().id(1L).build();
-        User bob = User.builder().id(2L).build();
-        Follow r1 = Follow.builder().id(100L).follower(alice).followed(bob).build();
-
-        when(followService.listFollowing(1L)).thenReturn(List.of(r1));
+        when(followService.listFollowing(1L)).thenReturn(new FollowGraph.Edges(new long[]{2L, 3L}, new long[]{10L, 11L}));
 
         mvc.perform(get("/api/follows/following/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(100)))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(10)))
                 .andExpect(jsonPath("$[0].followerId", is(1)))
-                .andExpect(jsonPath("$[0].followedId", is(2)));
+                .andExpect(jsonPath("$[0].followedId", is(2)))
+                .andExpect(jsonPath("$[1].followedId", is(3)));
     }
 
     @Test
     void listFollowers_returnsArray() throws Exception {
-        User alice = User.builder().id(1L).build();
-        User bob = User.builder().id(2L).build();
-        Follow r1 = Follow.builder().id(200L).follower(bob).followed(alice).build();
-
-        when(followService.listFollowers(1L)).thenReturn(List.of(r1));
+        when(followService.listFollowers(1L)).thenReturn(new FollowGraph.Edges(new long[]{2L}, new long[]{12L}));
 
         mvc.perform(get("/api/follows/followers/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(200)))
+                .andExpect(jsonPath("$[0].id", is(12)))
                 .andExpect(jsonPath("$[0].followerId", is(2)))
                 .andExpect(jsonPath("$[0].followedId", is(1)));
     }
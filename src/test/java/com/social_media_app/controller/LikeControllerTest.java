@@ -5,6 +5,7 @@ import com.social_media_app.config.SecurityConfig;
 import com.social_media_app.exceptions.ConflictException;
 import com.social_media_app.exceptions.GlobalExceptionHandler;
 import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.model.dto.LikeSummary;
 import com.social_media_app.security.JwtFilter;
 import com.social_media_app.service.LikeService;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +18,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -178,4 +181,31 @@ class LikeControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("detail", is("User not found: id=1")));
     }
+
+    @Test
+    void summary_returnsCountsAndFlags() throws Exception {
+        when(likeService.summarize(1L, List.of(100L, 101L)))
+                .thenReturn(List.of(new LikeSummary(100L, 5L, true), new LikeSummary(101L, 0L, false)));
+
+        String body = om.writeValueAsString(new LikeController.SummaryRequest(1L, List.of(100L, 101L)));
+
+        mvc.perform(post("/api/likes/summary")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].postId", is(100)))
+                .andExpect(jsonPath("$[0].count", is(5)))
+                .andExpect(jsonPath("$[0].liked", is(true)))
+                .andExpect(jsonPath("$[1].liked", is(false)));
+    }
+
+    @Test
+    void summary_returns400_whenNoPostIds() throws Exception {
+        String body = om.writeValueAsString(new LikeController.SummaryRequest(1L, List.of()));
+
+        mvc.perform(post("/api/likes/summary")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,86 @@
+package com.social_media_app.controller;
+
+import com.social_media_app.config.SecurityConfig;
+import com.social_media_app.exceptions.GlobalExceptionHandler;
+import com.social_media_app.security.JwtFilter;
+import com.social_media_app.service.LocalMediaStore;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = LocalMediaController.class, properties = {
+        "media.store.type=local",
+        "media.store.local.root=target/local-media-controller-test",
+        "media.store.local.url-secret=test-secret"
+})
+@Import({GlobalExceptionHandler.class, SecurityConfig.class, LocalMediaStore.class})
+class LocalMediaControllerTest {
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    LocalMediaStore store;
+    @MockitoBean
+    JwtFilter jwtFilter;
+
+    @BeforeEach
+    void passThrough() throws Exception {
+        doAnswer(inv -> {
+            inv.getArgument(2, FilterChain.class).doFilter(inv.getArgument(0), inv.getArgument(1));
+            return null;
+        }).when(jwtFilter).doFilter(any(), any(), any());
+    }
+
+    @Test
+    void download_signedUrl_streamsTheFile() throws Exception {
+        store.store("uploads/alex/photo", "jpeg-bytes".getBytes(), "image/jpeg");
+
+        mvc.perform(get(path(store.presignedUrl("uploads/alex/photo", Duration.ofMinutes(5)).toString())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(header().longValue("Content-Length", 10))
+                .andExpect(content().bytes("jpeg-bytes".getBytes()));
+    }
+
+    @Test
+    void download_onTomcat_handsTheFileToSendfile() throws Exception {
+        store.store("uploads/alex/video", new byte[4096], "video/mp4");
+
+        mvc.perform(get(path(store.presignedUrl("uploads/alex/video", Duration.ofMinutes(5)).toString()))
+                        .requestAttr(LocalMediaController.SENDFILE_SUPPORT, Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute(LocalMediaController.SENDFILE_FILENAME,
+                        store.path("uploads/alex/video").toString()))
+                .andExpect(request().attribute(LocalMediaController.SENDFILE_END, 4096L))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void download_badSignature_isForbidden() throws Exception {
+        store.store("uploads/alex/photo", "jpeg-bytes".getBytes(), "image/jpeg");
+        String url = path(store.presignedUrl("uploads/alex/photo", Duration.ofMinutes(5)).toString());
+
+        mvc.perform(get(url.replaceAll("signature=[^&]+", "signature=forged")))
+                .andExpect(status().isForbidden());
+    }
+
+    private static String path(String url) {
+        var uri = UriComponentsBuilder.fromUriString(url).build();
+        return uri.getPath() + "?" + uri.getQuery();
+    }
+}
@@ -1,29 +1,49 @@
 package com.social_media_app.controller;
 
+import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.service.MediaDiskCache;
+import com.social_media_app.service.MediaService;
 import com.social_media_app.service.S3StorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -35,6 +55,10 @@ class MediaControllerWithSecurityTest {
     @MockitoBean
     S3StorageService s3;
     @MockitoBean
+    MediaService media;
+    @MockitoBean
+    MediaDiskCache cache;
+    @MockitoBean
     com.social_media_app.security.JwtFilter jwtFilter;
 
     @BeforeEach
@@ -53,8 +77,8 @@ class MediaControllerWithSecurityTest {
     void upload_anonymous_returnsKeyAndUrl() throws Exception {
         var file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", "bytes".getBytes());
 
-        when(s3.upload(eq("uploads/anonymous"), any()))
-                .thenReturn("uploads/anonymous/uuid-1");
+        when(media.upload(eq("anonymous"), any()))
+                .thenReturn(MediaObject.builder().objectKey("uploads/anonymous/uuid-1").build());
         when(s3.presignedUrl(eq("uploads/anonymous/uuid-1"), any(Duration.class)))
                 .thenReturn(new URL("https://example.com/presigned"));
 
@@ -64,7 +88,7 @@ class MediaControllerWithSecurityTest {
                 .andExpect(jsonPath("$.key").value("uploads/anonymous/uuid-1"))
                 .andExpect(jsonPath("$.url").value("https://example.com/presigned"));
 
-        verify(s3).upload(eq("uploads/anonymous"), any());
+        verify(media).upload(eq("anonymous"), any());
         verify(s3).presignedUrl(eq("uploads/anonymous/uuid-1"), any(Duration.class));
         verifyNoMoreInteractions(s3);
     }
@@ -73,8 +97,8 @@ class MediaControllerWithSecurityTest {
     void upload_authenticated_usesUsernamePrefix() throws Exception {
         var file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", "bytes".getBytes());
 
-        when(s3.upload(eq("uploads/alex"), any()))
-                .thenReturn("uploads/alex/uuid-2");
+        when(media.upload(eq("alex"), any()))
+                .thenReturn(MediaObject.builder().objectKey("uploads/alex/uuid-2").build());
         when(s3.presignedUrl(eq("uploads/alex/uuid-2"), any(Duration.class)))
                 .thenReturn(new URL("https://example.com/alex"));
 
@@ -85,8 +109,175 @@ class MediaControllerWithSecurityTest {
                 .andExpect(jsonPath("$.key").value("uploads/alex/uuid-2"))
                 .andExpect(jsonPath("$.url").value("https://example.com/alex"));
 
-        verify(s3).upload(eq("uploads/alex"), any());
+        verify(media).upload(eq("alex"), any());
         verify(s3).presignedUrl(eq("uploads/alex/uuid-2"), any(Duration.class));
         verifyNoMoreInteractions(s3);
     }
-}
\ No newline at end of file
+
+    @Test
+    void uploadAsync_releasesRequestThread_andRespondsWhenS3Finishes() throws Exception {
+        var file = new MockMultipartFile("file", "video.mp4", "video/mp4", "bytes".getBytes());
+        var upload = new CompletableFuture<MediaObject>();
+
+        when(media.uploadAsync(eq("alex"), any())).thenReturn(upload);
+        when(s3.presignedUrl(eq("uploads/alex/uuid-4"), any(Duration.class)))
+                .thenReturn(new URL("https://example.com/async"));
+
+        MvcResult started = mvc.perform(multipart("/api/media/upload/async").file(file).with(user("alex")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        upload.complete(MediaObject.builder().objectKey("uploads/alex/uuid-4").build());
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("uploads/alex/uuid-4"))
+                .andExpect(jsonPath("$.url").value("https://example.com/async"));
+    }
+
+    @Test
+    void uploadStream_registersRawBody_withRequestContentType() throws Exception {
+        when(media.upload(eq("alex"), any(), eq("video/mp4")))
+                .thenReturn(MediaObject.builder().objectKey("uploads/alex/uuid-3").build());
+        when(s3.presignedUrl(eq("uploads/alex/uuid-3"), any(Duration.class)))
+                .thenReturn(new URL("https://example.com/stream"));
+
+        mvc.perform(put("/api/media/stream")
+                        .contentType("video/mp4")
+                        .content("raw-bytes".getBytes())
+                        .with(user("alex")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("uploads/alex/uuid-3"))
+                .andExpect(jsonPath("$.url").value("https://example.com/stream"));
+
+        verify(media).upload(eq("alex"), any(), eq("video/mp4"));
+    }
+
+    @Test
+    void uploadStream_overLimit_returns413() throws Exception {
+        when(media.upload(any(), any(), any())).thenThrow(new MaxUploadSizeExceededException(10));
+
+        mvc.perform(put("/api/media/stream").content("raw-bytes".getBytes()))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void presign_returnsPartUrlsUnderTheUsersPrefix() throws Exception {
+        when(s3.presignUpload(eq("uploads/alex"), eq("video/mp4"), eq(20_000_000L), any(Duration.class)))
+                .thenReturn(new S3StorageService.PresignedUpload("uploads/alex/uuid-5", "up-1", 8_388_608,
+                        List.of(new URL("https://example.com/p1"), new URL("https://example.com/p2"), new URL("https://example.com/p3"))));
+
+        mvc.perform(post("/api/media/presign")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentType\":\"video/mp4\",\"size\":20000000}")
+                        .with(user("alex")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("uploads/alex/uuid-5"))
+                .andExpect(jsonPath("$.uploadId").value("up-1"))
+                .andExpect(jsonPath("$.urls.length()").value(3));
+    }
+
+    @Test
+    void presign_invalidSize_returns400() throws Exception {
+        mvc.perform(post("/api/media/presign")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contentType\":\"video/mp4\",\"size\":0}")
+                        .with(user("alex")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void completePresigned_registersObject_andReturnsDownloadUrl() throws Exception {
+        when(media.complete(eq("alex"), eq("uploads/alex/uuid-5"), eq("up-1"), any(), eq(20_000_000L)))
+                .thenReturn(MediaObject.builder().objectKey("uploads/alex/uuid-5").size(20_000_000L).build());
+        when(s3.presignedUrl(eq("uploads/alex/uuid-5"), any(Duration.class)))
+                .thenReturn(new URL("https://example.com/get"));
+
+        mvc.perform(post("/api/media/presign/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"key":"uploads/alex/uuid-5","uploadId":"up-1","size":20000000,
+                                 "parts":[{"partNumber":1,"eTag":"a"},{"partNumber":2,"eTag":"b"}]}
+                                """)
+                        .with(user("alex")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key").value("uploads/alex/uuid-5"))
+                .andExpect(jsonPath("$.size").value(20_000_000))
+                .andExpect(jsonPath("$.url").value("https://example.com/get"));
+    }
+
+    @Test
+    void url_returnsRequestedVariant() throws Exception {
+        when(media.presignedUrl(eq("uploads/alex/uuid-6"), eq(MediaVariant.THUMBNAIL), any(Duration.class)))
+                .thenReturn(new URL("https://example.com/thumb"));
+
+        mvc.perform(get("/api/media/url").param("key", "uploads/alex/uuid-6").param("variant", "THUMBNAIL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.variant").value("THUMBNAIL"))
+                .andExpect(jsonPath("$.url").value("https://example.com/thumb"));
+    }
+
+    @Test
+    void download_servesCachedObject_withValidators() throws Exception {
+        stubCached("uploads/alex/uuid-7", "0123456789");
+
+        mvc.perform(get("/api/media/uploads/alex/uuid-7").with(user("alex")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void download_range_returnsPartialContent() throws Exception {
+        stubCached("uploads/alex/uuid-7", "0123456789");
+
+        mvc.perform(get("/api/media/uploads/alex/uuid-7").header(HttpHeaders.RANGE, "bytes=2-5").with(user("alex")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void download_rangeOfUncachedObject_fetchesOnlyThatRangeFromTheStore() throws Exception {
+        var entry = new MediaDiskCache.Entry("uploads/alex/big", null, "video/mp4", 1_000_000, "\"big\"");
+        when(cache.get("uploads/alex/big")).thenReturn(entry);
+        when(cache.resource(entry, 500_000, 4)).thenReturn(new ByteArrayResource("abcd".getBytes()));
+
+        mvc.perform(get("/api/media/uploads/alex/big").header(HttpHeaders.RANGE, "bytes=500000-500003").with(user("alex")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 500000-500003/1000000"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "4"))
+                .andExpect(content().string("abcd"));
+
+        mvc.perform(get("/api/media/uploads/alex/big").header(HttpHeaders.RANGE, "bytes=2000000-").with(user("alex")))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000000"));
+    }
+
+    @Test
+    void download_matchingIfNoneMatch_returns304() throws Exception {
+        stubCached("uploads/alex/uuid-7", "0123456789");
+
+        mvc.perform(get("/api/media/uploads/alex/uuid-7").header(HttpHeaders.IF_NONE_MATCH, "\"abc\"").with(user("alex")))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void download_unregisteredKey_returns404_withoutTouchingTheStore() throws Exception {
+        doThrow(new NotFoundException("Media not found: key=uploads/bob/private"))
+                .when(media).requireDownloadable("uploads/bob/private");
+
+        mvc.perform(get("/api/media/uploads/bob/private").with(user("alex")))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(cache);
+    }
+
+    private void stubCached(String key, String body) throws Exception {
+        var entry = new MediaDiskCache.Entry(key, Path.of("cached.media"), "image/jpeg", body.length(), "\"abc\"");
+        when(cache.get(key)).thenReturn(entry);
+        when(cache.resource(entry)).thenReturn(new ByteArrayResource(body.getBytes()));
+    }
+}
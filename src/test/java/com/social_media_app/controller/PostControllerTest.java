@@ -6,6 +6,8 @@ import com.social_media_app.exceptions.GlobalExceptionHandler;
 import com.social_media_app.exceptions.NotFoundException;
 import com.social_media_app.model.Post;
 import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.model.dto.PostView;
 import com.social_media_app.security.JwtFilter;
 import com.social_media_app.service.PostService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,18 +17,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -174,4 +180,74 @@ class PostControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("detail", is("User not found: id=99")));
     }
+
+    @Test
+    void scrollFeed_returnsNextCursor_whenMorePostsExist() throws Exception {
+        Post p1 = Post.builder().id(12L).author(User.builder().id(2L).build()).title("B2").body("..")
+                .createdAt(Instant.parse("2024-01-02T00:00:00Z")).build();
+        Post p2 = Post.builder().id(11L).author(User.builder().id(2L).build()).title("B1").body("..")
+                .createdAt(Instant.parse("2024-01-01T00:00:00Z")).build();
+        PostCursor before = new PostCursor(Instant.parse("2024-01-03T00:00:00Z"), 13L);
+
+        when(postService.feedFor(1L, before, 2))
+                .thenReturn(new SliceImpl<>(List.of(p1, p2), PageRequest.ofSize(2), true));
+
+        mvc.perform(get("/api/posts/feed/1/scroll").param("before", before.token()).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(12)))
+                .andExpect(jsonPath("$.size", is(2)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.nextCursor", is("2024-01-01T00:00:00Z,11")));
+    }
+
+    @Test
+    void scrollByAuthor_firstSlice_withoutCursor() throws Exception {
+        Post p1 = Post.builder().id(1L).author(User.builder().id(1L).build()).title("A1").body("...")
+                .createdAt(Instant.parse("2024-01-01T00:00:00Z")).build();
+
+        when(postService.listByAuthor(1L, null, 10))
+                .thenReturn(new SliceImpl<>(List.of(p1), PageRequest.ofSize(10), false));
+
+        mvc.perform(get("/api/posts/by-author/1/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext", is(false)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void scrollByAuthor_400_onMalformedCursor() throws Exception {
+        mvc.perform(get("/api/posts/by-author/1/scroll").param("before", "yesterday"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("detail", is("Invalid value for parameter 'before'")));
+    }
+
+    @Test
+    void scrollFeed_400_onOutOfRangeSize() throws Exception {
+        mvc.perform(get("/api/posts/feed/1/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("detail", startsWith("Invalid value for parameter 'size'")));
+        mvc.perform(get("/api/posts/feed/1/hydrated").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/posts/by-author/1?page=-1&size=10"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(postService);
+    }
+
+    @Test
+    void hydratedFeed_returnsAuthorAndLikes() throws Exception {
+        PostView v = new PostView(12L, 2L, "bob", "B2", "..", Instant.parse("2024-01-02T00:00:00Z"), 7L, true);
+
+        when(postService.hydratedFeedFor(1L, null, 1))
+                .thenReturn(new SliceImpl<>(List.of(v), PageRequest.ofSize(1), true));
+
+        mvc.perform(get("/api/posts/feed/1/hydrated").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].authorUsername", is("bob")))
+                .andExpect(jsonPath("$.content[0].likeCount", is(7)))
+                .andExpect(jsonPath("$.content[0].liked", is(true)))
+                .andExpect(jsonPath("$.nextCursor", is("2024-01-02T00:00:00Z,12")));
+    }
 }
@@ -0,0 +1,51 @@
+package com.social_media_app.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Databases created before the constraints were named still report the generated names */
+class ConstraintViolationsTest {
+
+    private static final DataIntegrityViolationException H2_UNIQUE = violation("""
+            Unique index or primary key violation: "PUBLIC.UKKBVO1MH4UB0BYB3KS2A5FWFB_INDEX_F ON PUBLIC.FOLLOWS(FOLLOWER_ID NULLS FIRST, FOLLOWED_ID NULLS FIRST) VALUES ( /* key:1 */ CAST(1 AS BIGINT), CAST(2 AS BIGINT))"; SQL statement:
+            insert into follows (followed_id,follower_id,id) values (?,?,default) [23505-232]""");
+    private static final DataIntegrityViolationException H2_FOREIGN_KEY = violation("""
+            Referential integrity constraint violation: "FKQNKW0CWWH6572NYHUDH2X7LJ: PUBLIC.FOLLOWS FOREIGN KEY(FOLLOWED_ID) REFERENCES PUBLIC.USERS(ID) (CAST(99 AS BIGINT))"; SQL statement:
+            insert into follows (followed_id,follower_id,id) values (?,?,default) [23506-232]""");
+    private static final DataIntegrityViolationException POSTGRES_UNIQUE = violation("""
+            ERROR: duplicate key value violates unique constraint "ukkbvo1mh4ub0byb3ks2a5fwfb"
+              Detail: Key (follower_id, followed_id)=(1, 2) already exists.""");
+
+    @Test
+    void namedConstraint_matchesByName() {
+        var ex = violation("Unique index or primary key violation: \"PUBLIC.UK_FOLLOWS_FOLLOWER_FOLLOWED_INDEX_F ON PUBLIC.FOLLOWS(...)\"");
+
+        assertThat(ConstraintViolations.isViolated(ex, "uk_follows_follower_followed")).isTrue();
+        assertThat(ConstraintViolations.isViolated(ex, "fk_follows_followed")).isFalse();
+    }
+
+    @Test
+    void generatedName_fallsBackToTheColumns() {
+        assertThat(ConstraintViolations.isViolated(H2_UNIQUE, "uk_follows_follower_followed", "follower_id", "followed_id")).isTrue();
+        assertThat(ConstraintViolations.isViolated(POSTGRES_UNIQUE, "uk_follows_follower_followed", "follower_id", "followed_id")).isTrue();
+        assertThat(ConstraintViolations.isViolated(H2_FOREIGN_KEY, "fk_follows_followed", "followed_id")).isTrue();
+    }
+
+    @Test
+    void columnFallback_tellsTheConstraintsOfOneTableApart() {
+        assertThat(ConstraintViolations.isViolated(H2_UNIQUE, "fk_follows_follower", "follower_id")).isFalse();
+        assertThat(ConstraintViolations.isViolated(POSTGRES_UNIQUE, "fk_follows_follower", "follower_id")).isFalse();
+        assertThat(ConstraintViolations.isViolated(H2_FOREIGN_KEY, "fk_follows_follower", "follower_id")).isFalse();
+        assertThat(ConstraintViolations.isViolated(H2_FOREIGN_KEY, "uk_follows_follower_followed", "follower_id", "followed_id")).isFalse();
+        // the insert's own column list must not count
+        assertThat(ConstraintViolations.isViolated(H2_UNIQUE, "uk_other", "followed_id", "follower_id", "id")).isFalse();
+    }
+
+    private static DataIntegrityViolationException violation(String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message));
+    }
+}
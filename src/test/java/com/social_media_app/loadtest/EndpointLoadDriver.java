@@ -0,0 +1,134 @@
+package com.social_media_app.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load against a running instance, to compare the default platform-thread Tomcat pool
+ * with the {@code virtual-threads} profile. Seeds one author with posts and one follower per worker,
+ * then drives {@code GET /api/posts/feed/{id}/scroll} and like/unlike pairs, printing throughput and
+ * p50/p99 latency per endpoint.
+ * <p>
+ * Start the app (optionally with {@code -Pjava21} and {@code SPRING_PROFILES_ACTIVE=virtual-threads}), then
+ * {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.social_media_app.loadtest.EndpointLoadDriver -Dexec.args="http://localhost:8080 400 30"}
+ * (base URL, concurrent clients, seconds per scenario).
+ */
+public final class EndpointLoadDriver {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient http;
+    private final String base;
+
+    private EndpointLoadDriver(String base, int concurrency) {
+        this.base = base;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        var driver = new EndpointLoadDriver(base, concurrency);
+        long run = System.currentTimeMillis();
+        long authorId = driver.createUser("author-" + run);
+        List<Long> postIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            postIds.add(driver.post("/api/posts", "{\"authorId\":%d,\"title\":\"t%d\",\"body\":\"body\"}".formatted(authorId, i)));
+        }
+        long[] readers = new long[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            readers[i] = driver.createUser("reader-" + run + "-" + i);
+            driver.post("/api/follows", "{\"followerId\":%d,\"followedId\":%d}".formatted(readers[i], authorId));
+        }
+
+        System.out.printf("concurrency=%d, %ds per scenario, %s%n", concurrency, seconds, Runtime.version());
+        driver.drive("feed", concurrency, seconds, w ->
+                HttpRequest.newBuilder(URI.create(base + "/api/posts/feed/" + readers[w] + "/scroll?size=20")).GET().build());
+
+        long postId = postIds.get(0);
+        driver.drive("like/unlike", concurrency, seconds, new IntFunction<>() {
+            private final boolean[] liked = new boolean[concurrency];
+
+            @Override
+            public HttpRequest apply(int w) {
+                var body = HttpRequest.BodyPublishers.ofString("{\"userId\":%d,\"postId\":%d}".formatted(readers[w], postId));
+                var req = HttpRequest.newBuilder(URI.create(base + "/api/likes"))
+                        .header("Content-Type", "application/json")
+                        .method(liked[w] ? "DELETE" : "POST", body)
+                        .build();
+                liked[w] = !liked[w];
+                return req;
+            }
+        });
+        System.exit(0);
+    }
+
+    private void drive(String name, int concurrency, int seconds, IntFunction<HttpRequest> request) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            results.add(workers.submit(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    HttpResponse<Void> res = http.send(request.apply(worker), HttpResponse.BodyHandlers.discarding());
+                    if (res.statusCode() >= 400) errors.incrementAndGet();
+                    if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                    samples[n++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(samples, n);
+            }));
+        }
+        List<long[]> all = new ArrayList<>();
+        for (Future<long[]> f : results) all.add(f.get());
+        workers.shutdown();
+
+        long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-12s %8.0f req/s  p50=%6.1fms  p99=%7.1fms  errors=%d%n",
+                name, latencies.length / (double) seconds,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, errors.get());
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private long createUser(String username) throws Exception {
+        return post("/api/users", "{\"username\":\"%s\"}".formatted(username));
+    }
+
+    private long post(String path, String json) throws Exception {
+        var req = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        String body = http.send(req, HttpResponse.BodyHandlers.ofString()).body();
+        Matcher m = ID.matcher(body);
+        if (!m.find()) throw new IllegalStateException(path + " -> " + body);
+        return Long.parseLong(m.group(1));
+    }
+}
@@ -0,0 +1,109 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.config.HibernateCacheConfig;
+import com.social_media_app.model.Post;
+import com.social_media_app.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Second-level cache hits across transactions, so each repository call runs in its own. Inserts with
+ * identity ids are not cached, the first read is.
+ */
+@DataJpaTest
+@Import({HibernateCacheConfig.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private MeterRegistry registry;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findById_afterCommit_isServedFromCache() {
+        User alice = userRepository.save(user("alice"));
+        userRepository.findById(alice.getId());
+        stats.clear();
+
+        assertThat(userRepository.findById(alice.getId())).get().extracting(User::getUsername).isEqualTo("alice");
+
+        assertThat(stats.getPrepareStatementCount()).isZero();
+        assertThat(registry.get("cache.gets").tags("cache", User.CACHE_REGION, "result", "hit").functionCounter().count())
+                .isPositive();
+    }
+
+    @Test
+    void findByUsername_isServedFromNaturalIdCache() {
+        userRepository.save(user("alice"));
+        userRepository.findByUsername("alice");
+        stats.clear();
+
+        assertThat(userRepository.findByUsername("alice")).get().extracting(User::getEmail).isEqualTo("alice@email.com");
+        assertThat(userRepository.findByUsername("nobody")).isEmpty();
+
+        // only the miss goes to the database
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(stats.getNaturalIdCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updates_replaceTheCachedEntry() {
+        User alice = userRepository.save(user("alice"));
+        alice.setActive(false);
+        userRepository.save(alice);
+        stats.clear();
+
+        assertThat(userRepository.findById(alice.getId())).get().extracting(User::getActive).isEqualTo(false);
+        assertThat(stats.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void post_findById_afterCommit_isServedFromCache() {
+        User alice = userRepository.save(user("alice"));
+        Post post = postRepository.save(Post.builder().title("t").body("b").author(alice).build());
+        postRepository.findById(post.getId());
+        stats.clear();
+
+        assertThat(postRepository.findById(post.getId())).get().extracting(Post::getTitle).isEqualTo("t");
+        assertThat(stats.getPrepareStatementCount()).isZero();
+    }
+
+    private static User user(String username) {
+        return User.builder().username(username).email(username + "@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
+    }
+}
@@ -36,20 +36,29 @@ class FollowRepositoryTest {
     }
 
     @Test
-    void existsAndFindPair() {
+    void existsPair() {
         assertThat(followRepository.existsByFollowerAndFollowed(alice, bob)).isTrue();
-        assertThat(followRepository.findByFollowerAndFollowed(alice, bob)).isPresent();
         assertThat(followRepository.existsByFollowerAndFollowed(bob, carol)).isFalse();
     }
 
     @Test
-    void listFollowersAndFollowing() {
-        List<Follow> followingOfAlice = followRepository.findAllByFollower(alice);
-        List<Follow> followersOfAlice = followRepository.findAllByFollowed(alice);
+    void bulkDelete_returnsAffectedRows() {
+        assertThat(followRepository.deleteByFollowerIdAndFollowedId(alice.getId(), bob.getId())).isEqualTo(1);
+        assertThat(followRepository.deleteByFollowerIdAndFollowedId(alice.getId(), bob.getId())).isZero();
+        assertThat(followRepository.existsByFollowerAndFollowed(alice, bob)).isFalse();
+        assertThat(followRepository.existsByFollowerAndFollowed(alice, carol)).isTrue();
+    }
+
+    @Test
+    void countFollowersAndFindPopularFollowees() {
+        followRepository.save(Follow.builder().follower(carol).followed(bob).build());
 
-        assertThat(followingOfAlice).hasSize(2);
-        assertThat(followersOfAlice).hasSize(1);
-        assertThat(followersOfAlice.get(0).getFollower().getUsername()).isEqualTo("bob");
+        assertThat(followRepository.countByFollowedId(bob.getId())).isEqualTo(2);
+        List<Long> all = List.of(alice.getId(), bob.getId(), carol.getId());
+        assertThat(followRepository.findFollowedIdsHavingFollowersAtLeast(all, 2))
+                .containsExactly(bob.getId());
+        assertThat(followRepository.findFollowedIdsHavingFollowersAtLeast(List.of(bob.getId(), carol.getId()), 1))
+                .containsExactlyInAnyOrder(bob.getId(), carol.getId());
     }
 
     private static User getUser1() {
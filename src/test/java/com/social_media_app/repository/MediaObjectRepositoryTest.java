@@ -0,0 +1,73 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.exceptions.ConstraintViolations;
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class MediaObjectRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(User.builder().username("alice").email("alice@email.com").active(true)
+                .createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build());
+    }
+
+    @Test
+    void findByObjectKey_andKeysAreUnique() {
+        mediaObjectRepository.saveAndFlush(media("uploads/alice/1"));
+
+        assertThat(mediaObjectRepository.findByObjectKey("uploads/alice/1"))
+                .hasValueSatisfying(m -> {
+                    assertThat(m.getSize()).isEqualTo(42L);
+                    assertThat(m.getCreatedAt()).isNotNull();
+                });
+        assertThat(mediaObjectRepository.findByObjectKey("uploads/alice/2")).isEmpty();
+
+        assertThatThrownBy(() -> mediaObjectRepository.saveAndFlush(media("uploads/alice/1")))
+                .isInstanceOfSatisfying(DataIntegrityViolationException.class,
+                        ex -> assertThat(ConstraintViolations.isViolated(ex, MediaObject.UK_OBJECT_KEY)).isTrue());
+    }
+
+    @Test
+    void findBySha256_andIncrementRefCount() {
+        MediaObject saved = mediaObjectRepository.saveAndFlush(MediaObject.builder().objectKey("uploads/alice/1")
+                .sha256("ab".repeat(32)).owner(alice).size(42).build());
+
+        assertThat(mediaObjectRepository.incrementRefCount(saved.getId())).isEqualTo(1);
+        assertThat(mediaObjectRepository.incrementRefCount(saved.getId())).isEqualTo(1);
+
+        entityManager.clear();
+        assertThat(mediaObjectRepository.findBySha256("ab".repeat(32)))
+                .hasValueSatisfying(m -> {
+                    assertThat(m.getObjectKey()).isEqualTo("uploads/alice/1");
+                    assertThat(m.getRefCount()).isEqualTo(3L);
+                });
+        assertThat(mediaObjectRepository.findBySha256("cd".repeat(32))).isEmpty();
+    }
+
+    private MediaObject media(String key) {
+        return MediaObject.builder().objectKey(key).owner(alice).contentType("image/jpeg").size(42).build();
+    }
+}
@@ -1,16 +1,22 @@
 package com.social_media_app.repository;
 
+import com.social_media_app.exceptions.ConstraintViolations;
 import com.social_media_app.model.Post;
 import com.social_media_app.model.PostLike;
 import com.social_media_app.model.User;
+import com.social_media_app.model.dto.LikeSummary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 class PostLikeRepositoryTest {
@@ -34,15 +40,41 @@ class PostLikeRepositoryTest {
     }
 
     @Test
-    void likeExistsCountAndDelete() {
+    void summarize_returnsCountAndLikedFlag_perPost() {
+        Post other = postRepository.save(Post.builder().title("Other").body("Body").author(bob).build());
         postLikeRepository.save(PostLike.builder().user(bob).post(post).build());
 
-        assertThat(postLikeRepository.existsByUserAndPost(bob, post)).isTrue();
-        assertThat(postLikeRepository.countByPost(post)).isEqualTo(1L);
+        List<LikeSummary> summaries = postLikeRepository.summarize(bob.getId(), List.of(post.getId(), other.getId(), -1L));
 
-        postLikeRepository.deleteByUserAndPost(bob, post);
-        assertThat(postLikeRepository.existsByUserAndPost(bob, post)).isFalse();
-        assertThat(postLikeRepository.countByPost(post)).isZero();
+        assertThat(summaries)
+                .extracting(LikeSummary::postId, LikeSummary::liked)
+                .containsExactlyInAnyOrder(tuple(post.getId(), true), tuple(other.getId(), false));
+        assertThat(postLikeRepository.summarize(null, List.of(post.getId())))
+                .singleElement().extracting(LikeSummary::liked).isEqualTo(false);
+    }
+
+    @Test
+    void idBasedExistsAndDelete() {
+        postLikeRepository.save(PostLike.builder().user(bob).post(post).build());
+
+        assertThat(postLikeRepository.existsByUserIdAndPostId(bob.getId(), post.getId())).isTrue();
+        assertThat(postLikeRepository.deleteByUserIdAndPostId(bob.getId(), post.getId())).isEqualTo(1);
+        assertThat(postLikeRepository.existsByUserIdAndPostId(bob.getId(), post.getId())).isFalse();
+        assertThat(postLikeRepository.deleteByUserIdAndPostId(bob.getId(), post.getId())).isZero();
+    }
+
+    @Test
+    void violations_carryTheNamedConstraints() {
+        postLikeRepository.saveAndFlush(PostLike.builder().user(bob).post(post).build());
+
+        assertThatThrownBy(() -> postLikeRepository.saveAndFlush(PostLike.builder().user(bob).post(post).build()))
+                .isInstanceOfSatisfying(DataIntegrityViolationException.class,
+                        ex -> assertThat(ConstraintViolations.isViolated(ex, PostLike.UK_USER_POST)).isTrue());
+
+        assertThatThrownBy(() -> postLikeRepository.saveAndFlush(PostLike.builder()
+                .user(userRepository.getReferenceById(-1L)).post(post).build()))
+                .isInstanceOfSatisfying(DataIntegrityViolationException.class,
+                        ex -> assertThat(ConstraintViolations.isViolated(ex, PostLike.FK_USER)).isTrue());
     }
 
     private static User getUser1() {
@@ -2,12 +2,18 @@ package com.social_media_app.repository;
 
 import com.social_media_app.model.Post;
 import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.service.LikeCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.List;
@@ -20,6 +26,8 @@ class PostRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private PostRepository postRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     private User alice;
     private User bob;
@@ -53,6 +61,41 @@ class PostRepositoryTest {
         assertThat(page.getTotalElements()).isEqualTo(3);
         assertThat(page.getContent()).allMatch(p -> p.getAuthor() != null);
     }
+    @Test
+    void findByAuthorIdBefore_pagesByKeyset() {
+        Instant t = Instant.parse("2024-01-01T00:00:00Z");
+        Post older = postRepository.save(Post.builder().title("K1").body("...").author(bob).createdAt(t).build());
+        Post sameTime = postRepository.save(Post.builder().title("K2").body("...").author(bob).createdAt(t).build());
+
+        List<Post> first = postRepository.findByAuthorIdBefore(bob.getId(), PostCursor.NEWEST.createdAt(), PostCursor.NEWEST.id(), Limit.of(2));
+        assertThat(first).extracting(Post::getTitle).containsExactly("B1", "K2");
+
+        List<Post> next = postRepository.findByAuthorIdBefore(bob.getId(), sameTime.getCreatedAt(), sameTime.getId(), Limit.of(2));
+        assertThat(next).containsExactly(older);
+    }
+
+    @Test
+    void countByAuthorIdIn_countsAllAuthors() {
+        assertThat(postRepository.countByAuthorIdIn(List.of(alice.getId(), bob.getId()))).isEqualTo(3);
+        assertThat(postRepository.countByAuthorIdIn(List.of(bob.getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void findLikeCountById_readsFlushedCounter() {
+        Post p = postRepository.findAllByAuthorOrderByCreatedAtDesc(bob, PageRequest.of(0, 1)).getContent().get(0);
+        assertThat(postRepository.findLikeCountById(p.getId())).contains(0L);
+
+        LikeCounter counter = new LikeCounter(jdbcTemplate);
+        counter.increment(p.getId());
+        counter.increment(p.getId());
+        assertThat(counter.pending(p.getId())).isZero(); // deferred until the test transaction "commits"
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        counter.flush();
+
+        assertThat(postRepository.findLikeCountById(p.getId())).contains(2L);
+        assertThat(postRepository.findLikeCountById(-1L)).isEmpty();
+    }
+
     private static User getUser1() {
         return User.builder().username("bob").email("bob@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
     }
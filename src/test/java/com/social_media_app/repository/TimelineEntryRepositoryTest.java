@@ -0,0 +1,164 @@
+package com.social_media_app.repository;
+
+import com.social_media_app.model.Follow;
+import com.social_media_app.model.Post;
+import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class TimelineEntryRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private TimelineEntryRepository timelineRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(user("alice"));
+        bob = userRepository.save(user("bob"));
+        carol = userRepository.save(user("carol"));
+
+        followRepository.save(Follow.builder().follower(alice).followed(bob).build());
+        followRepository.save(Follow.builder().follower(carol).followed(bob).build());
+    }
+
+    @Test
+    void fanOut_pushesPostToEveryFollower() {
+        Post b1 = postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+        Post b2 = postRepository.save(post(bob, "B2", Instant.parse("2024-01-02T00:00:00Z")));
+
+        assertThat(timelineRepository.fanOut(b1.getId())).isEqualTo(2);
+        assertThat(timelineRepository.fanOut(b2.getId())).isEqualTo(2);
+
+        Page<Post> page = timelineRepository.findPostsByOwnerId(alice.getId(), PageRequest.of(0, 10));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Post::getTitle).containsExactly("B2", "B1");
+        assertThat(timelineRepository.findPostsByOwnerId(bob.getId(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void backfillAndEvict_onlyTouchOneFollowerAndAuthor() {
+        Post a1 = postRepository.save(post(alice, "A1", Instant.parse("2024-01-01T00:00:00Z")));
+        Post a2 = postRepository.save(post(alice, "A2", Instant.parse("2024-01-03T00:00:00Z")));
+
+        postRepository.save(post(alice, "A0", Instant.parse("2023-06-01T00:00:00Z")));
+        followRepository.save(Follow.builder().follower(bob).followed(alice).build());
+        Instant since = Instant.parse("2023-12-01T00:00:00Z");
+
+        assertThat(timelineRepository.backfill(bob.getId(), alice.getId(), since)).isEqualTo(2); // A0 is too old
+        assertThat(timelineRepository.backfill(carol.getId(), alice.getId(), since)).isZero(); // carol does not follow alice
+
+        Page<Post> page = timelineRepository.findPostsByOwnerId(bob.getId(), PageRequest.of(0, 10));
+        assertThat(page.getContent()).extracting(Post::getId).containsExactly(a2.getId(), a1.getId());
+
+        assertThat(timelineRepository.deleteByOwnerIdAndAuthorId(bob.getId(), alice.getId())).isEqualTo(2);
+        assertThat(timelineRepository.findPostsByOwnerId(bob.getId(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void backfillSince_fillsMissingRecentEntries_once() {
+        postRepository.save(post(bob, "B0", Instant.parse("2023-12-01T00:00:00Z")));
+        Post b1 = postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+        Post c1 = postRepository.save(post(carol, "C1", Instant.parse("2024-01-02T00:00:00Z")));
+        followRepository.save(Follow.builder().follower(alice).followed(carol).build());
+        timelineRepository.fanOut(b1.getId()); // already pushed to alice and carol
+
+        Instant since = Instant.parse("2023-12-15T00:00:00Z");
+        assertThat(timelineRepository.backfillSince(since, List.of())).isEqualTo(1);
+        assertThat(timelineRepository.backfillSince(since, List.of())).isZero();
+
+        assertThat(timelineRepository.findPostsByOwnerId(alice.getId(), PageRequest.of(0, 10)))
+                .extracting(Post::getTitle).containsExactly("C1", "B1");
+        assertThat(timelineRepository.countByOwnerId(carol.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void backfillSince_skipsExcludedAuthors() {
+        postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+
+        assertThat(timelineRepository.backfillSince(Instant.EPOCH, List.of(bob.getId()))).isZero();
+        assertThat(timelineRepository.backfillSince(Instant.EPOCH, List.of(carol.getId()))).isEqualTo(2);
+    }
+
+    @Test
+    void backfillAuthor_pushesRecentPostsOfOneAuthorToAllFollowers() {
+        postRepository.save(post(bob, "B0", Instant.parse("2023-12-01T00:00:00Z")));
+        Post b1 = postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+        postRepository.save(post(carol, "C1", Instant.parse("2024-01-02T00:00:00Z")));
+        followRepository.save(Follow.builder().follower(alice).followed(carol).build());
+
+        assertThat(timelineRepository.backfillAuthor(bob.getId(), Instant.parse("2023-12-15T00:00:00Z"))).isEqualTo(2);
+        assertThat(timelineRepository.backfillAuthor(bob.getId(), Instant.parse("2023-12-15T00:00:00Z"))).isZero();
+
+        assertThat(timelineRepository.findPostsByOwnerId(alice.getId(), PageRequest.of(0, 10)))
+                .extracting(Post::getId).containsExactly(b1.getId());
+    }
+
+    @Test
+    void findPostsByOwnerIdExcludingAuthors_skipsPulledAuthors() {
+        Post b1 = postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+        Post c1 = postRepository.save(post(carol, "C1", Instant.parse("2024-01-02T00:00:00Z")));
+        followRepository.save(Follow.builder().follower(alice).followed(carol).build());
+        timelineRepository.fanOut(b1.getId());
+        timelineRepository.fanOut(c1.getId());
+
+        Page<Post> page = timelineRepository.findPostsByOwnerIdExcludingAuthors(
+                alice.getId(), List.of(carol.getId()), PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(Post::getTitle).containsExactly("B1");
+        assertThat(timelineRepository.countByOwnerIdExcludingAuthors(alice.getId(), List.of(carol.getId()))).isEqualTo(1);
+        assertThat(timelineRepository.countByOwnerId(alice.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void findPostsByOwnerIdBefore_pagesByKeyset() {
+        Post b1 = postRepository.save(post(bob, "B1", Instant.parse("2024-01-01T00:00:00Z")));
+        Post b2 = postRepository.save(post(bob, "B2", Instant.parse("2024-01-02T00:00:00Z")));
+        Post c1 = postRepository.save(post(carol, "C1", Instant.parse("2024-01-03T00:00:00Z")));
+        followRepository.save(Follow.builder().follower(alice).followed(carol).build());
+        timelineRepository.fanOut(b1.getId());
+        timelineRepository.fanOut(b2.getId());
+        timelineRepository.fanOut(c1.getId());
+
+        List<Post> first = timelineRepository.findPostsByOwnerIdBefore(
+                alice.getId(), PostCursor.NEWEST.createdAt(), PostCursor.NEWEST.id(), Limit.of(2));
+        assertThat(first).extracting(Post::getTitle).containsExactly("C1", "B2");
+
+        List<Post> next = timelineRepository.findPostsByOwnerIdBefore(
+                alice.getId(), b2.getCreatedAt(), b2.getId(), Limit.of(2));
+        assertThat(next).extracting(Post::getTitle).containsExactly("B1");
+
+        List<Post> withoutCarol = timelineRepository.findPostsByOwnerIdExcludingAuthorsBefore(
+                alice.getId(), List.of(carol.getId()), PostCursor.NEWEST.createdAt(), PostCursor.NEWEST.id(), Limit.of(10));
+        assertThat(withoutCarol).extracting(Post::getTitle).containsExactly("B2", "B1");
+    }
+
+    private static Post post(User author, String title, Instant createdAt) {
+        return Post.builder().title(title).body("...").author(author).createdAt(createdAt).build();
+    }
+
+    private static User user(String username) {
+        return User.builder().username(username).email(username + "@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.social_media_app.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BcryptCostCalibratorTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void picksHighestCostWithinTarget() {
+        // 4ms at cost 8 -> 8ms@9, 16ms@10, ..., 256ms@14 > 250ms
+        assertThat(BcryptCostCalibrator.calibrate(250, 4, 31, cost -> 4 * MS)).isEqualTo(13);
+        assertThat(BcryptCostCalibrator.calibrate(256, 4, 31, cost -> 4 * MS)).isEqualTo(14);
+    }
+
+    @Test
+    void usesFastestProbe_toDiscountWarmUp() {
+        long[] runs = {200 * MS, 50 * MS, 4 * MS};
+        int[] call = {0};
+
+        assertThat(BcryptCostCalibrator.calibrate(250, 4, 31, cost -> runs[call[0]++])).isEqualTo(13);
+    }
+
+    @Test
+    void clampsToConfiguredBounds() {
+        assertThat(BcryptCostCalibrator.calibrate(250, 10, 16, cost -> 500 * MS)).isEqualTo(10);
+        assertThat(BcryptCostCalibrator.calibrate(10_000, 10, 12, cost -> MS)).isEqualTo(12);
+    }
+
+    @Test
+    void calibratesAgainstRealBcrypt() {
+        assertThat(BcryptCostCalibrator.calibrate(1, 4, 6)).isBetween(4, 6);
+    }
+}
@@ -1,7 +1,5 @@
 package com.social_media_app.security;
 
-import com.social_media_app.model.User;
-import com.social_media_app.repository.UserRepository;
 import com.social_media_app.service.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,8 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -25,8 +25,8 @@ class JwtFilterTest {
         String token = "valid.jwt.token";
 
         JwtService jwtService = mock(JwtService.class);
-        UserRepository userRepository = mock(UserRepository.class);
-        JwtFilter filter = new JwtFilter(jwtService, userRepository);
+        PrincipalCache principals = mock(PrincipalCache.class);
+        JwtFilter filter = new JwtFilter(jwtService, principals);
 
         MockHttpServletRequest request = new MockHttpServletRequest();
         request.addHeader("Authorization", "Bearer " + token);
@@ -34,7 +34,7 @@ class JwtFilterTest {
         FilterChain chain = mock(FilterChain.class);
 
         when(jwtService.getSubject(token)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(User.builder().username(username).build()));
+        when(principals.get(username)).thenReturn(Optional.of(new User(username, "", List.of())));
 
         filter.doFilterInternal(request, response, chain);
 
@@ -47,4 +47,24 @@ class JwtFilterTest {
 
         SecurityContextHolder.clearContext();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDoFilterInternal_UnknownOrInactiveUser_LeavesContextEmpty() throws ServletException, IOException {
+        JwtService jwtService = mock(JwtService.class);
+        PrincipalCache principals = mock(PrincipalCache.class);
+        JwtFilter filter = new JwtFilter(jwtService, principals);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        when(jwtService.getSubject("token")).thenReturn("bob");
+        when(principals.get("bob")).thenReturn(Optional.empty());
+
+        filter.doFilterInternal(request, response, chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(chain).doFilter(request, response);
+    }
+}
@@ -0,0 +1,110 @@
+package com.social_media_app.security;
+
+import com.social_media_app.model.User;
+import com.social_media_app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import({PrincipalCache.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"security.principal-cache.ttl-sec=60", "security.admin-usernames=root,ops"})
+class PrincipalCacheTest {
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+    @Autowired
+    private PrincipalCache principals;
+    @Autowired
+    private MeterRegistry registry;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(User.builder().username("alice").email("alice@email.com")
+                .active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build());
+        principals.evict("alice");
+        clearInvocations(userRepository);
+    }
+
+    @Test
+    void get_queriesOnce_thenServesFromCache() {
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        assertThat(principals.get("alice")).hasValueSatisfying(p -> assertThat(p.getUsername()).isEqualTo("alice"));
+        assertThat(principals.get("alice")).isPresent();
+
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertThat(gets("hit") - hits).isEqualTo(1);
+        assertThat(gets("miss") - misses).isEqualTo(1);
+    }
+
+    @Test
+    void get_grantsAdminRole_onlyToConfiguredUsernames() {
+        userRepository.save(User.builder().username("root").email("root@email.com")
+                .active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build());
+
+        assertThat(principals.get("root").orElseThrow().getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        assertThat(principals.get("alice").orElseThrow().getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void get_isEmpty_forMissingOrInactiveUsers() {
+        userRepository.save(alice.toBuilder().active(false).build());
+
+        assertThat(principals.get("alice")).isEmpty();
+        assertThat(principals.get("ghost")).isEmpty();
+        assertThat(principals.get("alice")).isEmpty();
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void deactivation_evictsCachedPrincipal() {
+        assertThat(principals.get("alice")).isPresent();
+
+        alice.setActive(false);
+        userRepository.saveAndFlush(alice);
+
+        assertThat(principals.get("alice")).isEmpty();
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void evictionDuringALoad_keepsTheLoadedRowOutOfTheCache() {
+        // the row is read, then an update commits and evicts before the miss gets to cache it
+        doAnswer(inv -> {
+            principals.evict("alice");
+            return Optional.of(alice);
+        }).when(userRepository).findByUsername("alice");
+
+        assertThat(principals.get("alice")).isPresent();
+        assertThat(principals.get("alice")).isPresent();
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", PrincipalCache.NAME).tag("result", result)
+                .functionCounter().count();
+    }
+}
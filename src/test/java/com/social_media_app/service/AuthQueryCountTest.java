@@ -0,0 +1,72 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.dto.LoginRequest;
+import com.social_media_app.model.dto.RegisterRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Statements per login / register call: both are a single round-trip on the happy path
+ */
+@DataJpaTest
+@Import({AuthService.class, PasswordHasher.class, JwtService.class, BCryptPasswordEncoder.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AuthQueryCountTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        authService.register(new RegisterRequest("alice", "alice@email.com", "secret123"));
+        em.clear();
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void register_isOneInsert() {
+        authService.register(new RegisterRequest("bob", "bob@email.com", "secret123"));
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void register_duplicate_isOneRejectedInsert() {
+        assertThatThrownBy(() -> authService.register(new RegisterRequest("alice", "other@email.com", "secret123")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("username taken");
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void login_byUsernameOrEmail_isOneSelect() {
+        assertThat(authService.login(new LoginRequest("alice", "secret123")).accessToken()).isNotBlank();
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+
+        em.clear();
+        stats.clear();
+        assertThat(authService.login(new LoginRequest("ALICE@email.com", "secret123")).accessToken()).isNotBlank();
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
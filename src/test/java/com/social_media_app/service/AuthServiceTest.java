@@ -10,9 +10,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -29,7 +31,7 @@ class AuthServiceTest {
     @Mock
     UserRepository users;
     @Mock
-    PasswordEncoder encoder;
+    PasswordHasher hasher;
     @Mock
     JwtService jwt;
 
@@ -37,19 +39,17 @@ class AuthServiceTest {
     AuthService service;
 
     @Test
-    void register_success() {
+    void register_success_isSingleInsert() {
         var req = new RegisterRequest("alex", "A@A.com", "secret123");
 
-        when(users.existsByUsername("alex")).thenReturn(false);
-        when(users.existsByEmail("a@a.com")).thenReturn(false);
-        when(encoder.encode("secret123")).thenReturn("ENCODED");
+        when(hasher.encode("secret123")).thenReturn("ENCODED");
         var saved = User.builder()
                 .id(42L).username("alex").email("a@a.com")
                 .passwordHash("ENCODED").createdAt(Instant.now()).active(true)
                 .build();
         // capture the first save argument and return "saved"
         ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
-        when(users.save(captor.capture())).thenReturn(saved);
+        when(users.saveAndFlush(captor.capture())).thenReturn(saved);
 
         var resp = service.register(req);
 
@@ -60,27 +60,34 @@ class AuthServiceTest {
         assertEquals("alex", toSave.getUsername());
         assertEquals("a@a.com", toSave.getEmail());
         assertEquals("ENCODED", toSave.getPasswordHash());
-        verify(users, times(1)).save(any(User.class));
+        verify(users, times(1)).saveAndFlush(any(User.class));
         verifyNoMoreInteractions(users);
     }
 
     @Test
     void register_usernameTaken() {
         var req = new RegisterRequest("alex", "a@a.com", "x");
-        when(users.existsByUsername("alex")).thenReturn(true);
+        when(users.saveAndFlush(any())).thenThrow(violation(User.UK_USERNAME));
 
-        assertThrows(IllegalArgumentException.class, () -> service.register(req));
-        verify(users, never()).save(any());
+        var ex = assertThrows(IllegalArgumentException.class, () -> service.register(req));
+        assertEquals("username taken", ex.getMessage());
     }
 
     @Test
     void register_emailTaken() {
         var req = new RegisterRequest("alex", "a@a.com", "x");
-        when(users.existsByUsername("alex")).thenReturn(false);
-        when(users.existsByEmail("a@a.com")).thenReturn(true);
+        when(users.saveAndFlush(any())).thenThrow(violation(User.UK_EMAIL));
 
-        assertThrows(IllegalArgumentException.class, () -> service.register(req));
-        verify(users, never()).save(any());
+        var ex = assertThrows(IllegalArgumentException.class, () -> service.register(req));
+        assertEquals("email taken", ex.getMessage());
+    }
+
+    @Test
+    void register_otherViolation_isRethrown() {
+        var req = new RegisterRequest("alex", "a@a.com", "x");
+        when(users.saveAndFlush(any())).thenThrow(violation("some_check"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.register(req));
     }
 
     @Test
@@ -95,16 +102,78 @@ class AuthServiceTest {
                 .active(true)
                 .build();
 
-        when(users.findByUsername("alex")).thenReturn(java.util.Optional.of(user));
-        when(encoder.matches("ikhdgi", "HASHED")).thenReturn(true);
+        when(users.findByUsernameOrEmail("alex", "alex")).thenReturn(List.of(user));
+        when(hasher.matches("ikhdgi", "HASHED")).thenReturn(true);
+        when(hasher.needsRehash("HASHED")).thenReturn(false);
         when(jwt.generate("alex")).thenReturn("TOKEN");
 
         var response = service.login(request);
 
         assertEquals("TOKEN", response.accessToken());
-        verify(users, times(1)).findByUsername("alex");
-        verify(encoder, times(1)).matches("ikhdgi", "HASHED");
+        verify(users, times(1)).findByUsernameOrEmail("alex", "alex");
+        verify(hasher, times(1)).matches("ikhdgi", "HASHED");
+        verify(hasher, times(1)).needsRehash("HASHED");
         verify(jwt, times(1)).generate("alex");
-        verifyNoMoreInteractions(users, encoder, jwt);
+        verifyNoMoreInteractions(users, hasher, jwt);
+    }
+
+    @Test
+    void login_rehashesOutdatedHash() {
+        User user = User.builder()
+                .id(1L).username("alex")
+                .email("alex@email.com")
+                .passwordHash("$2a$04$legacy")
+                .createdAt(Instant.now())
+                .active(true)
+                .build();
+
+        when(users.findByUsernameOrEmail("alex", "alex")).thenReturn(List.of(user));
+        when(hasher.matches("ikhdgi", "$2a$04$legacy")).thenReturn(true);
+        when(hasher.needsRehash("$2a$04$legacy")).thenReturn(true);
+        when(hasher.encode("ikhdgi")).thenReturn("{bcrypt}$2a$12$upgraded");
+        when(jwt.generate("alex")).thenReturn("TOKEN");
+
+        service.login(new LoginRequest("alex", "ikhdgi"));
+
+        assertEquals("{bcrypt}$2a$12$upgraded", user.getPasswordHash());
+        verify(users).save(user);
+    }
+
+    @Test
+    void login_badPassword_neverRehashes() {
+        User user = User.builder().id(1L).username("alex").passwordHash("HASHED").build();
+        when(users.findByUsernameOrEmail("alex", "alex")).thenReturn(List.of(user));
+        when(hasher.matches("wrong", "HASHED")).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> service.login(new LoginRequest("alex", "wrong")));
+        verify(hasher, never()).needsRehash(any());
+        verify(users, never()).save(any());
+    }
+
+    @Test
+    void login_byEmail_usesSameSingleLookup() {
+        User user = User.builder().id(1L).username("alex").email("alex@email.com").passwordHash("HASHED").build();
+        when(users.findByUsernameOrEmail("Alex@Email.com", "alex@email.com")).thenReturn(List.of(user));
+        when(hasher.matches("pw", "HASHED")).thenReturn(true);
+        when(jwt.generate("alex")).thenReturn("TOKEN");
+
+        assertEquals("TOKEN", service.login(new LoginRequest("Alex@Email.com", "pw")).accessToken());
+        verify(users, never()).findByUsername(any());
+        verify(users, never()).findByEmail(any());
+    }
+
+    @Test
+    void login_prefersUsernameMatch_overAnotherUsersEmail() {
+        User byEmail = User.builder().id(1L).username("carol").email("x@y.z").passwordHash("H1").build();
+        User byName = User.builder().id(2L).username("x@y.z").email("other@y.z").passwordHash("H2").build();
+        when(users.findByUsernameOrEmail("x@y.z", "x@y.z")).thenReturn(List.of(byEmail, byName));
+        when(hasher.matches("pw", "H2")).thenReturn(true);
+        when(jwt.generate("x@y.z")).thenReturn("TOKEN");
+
+        assertEquals("TOKEN", service.login(new LoginRequest("x@y.z", "pw")).accessToken());
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("Unique index or primary key violation: \"PUBLIC." + constraint.toUpperCase() + "\"");
     }
 }
@@ -0,0 +1,114 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FeedMergeEngineTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    private Map<Long, List<Post>> byAuthor;
+
+    @BeforeEach
+    void setUp() {
+        // author 10 posts every hour, author 20 once a day, author 30 never
+        List<Post> busy = new ArrayList<>();
+        for (int h = 0; h < 24; h++) busy.add(post(100L + h, 10L, Instant.parse("2024-01-02T00:00:00Z").minusSeconds(3600L * h)));
+        byAuthor = Map.of(
+                10L, busy,
+                20L, List.of(post(200L, 20L, Instant.parse("2024-01-01T12:30:00Z"))),
+                30L, List.of());
+
+        lenient().when(postRepository.findByAuthorIdBefore(anyLong(), any(), any(), any())).thenAnswer(inv -> {
+            Long authorId = inv.getArgument(0);
+            var before = new PostCursor(inv.getArgument(1), inv.getArgument(2));
+            Limit limit = inv.getArgument(3);
+            fetchSizes.add(limit.max());
+            return olderThan(byAuthor.get(authorId), before, limit.max());
+        });
+    }
+
+    @Test
+    void merge_interleavesTimelineAndAuthors_newestFirst() {
+        var engine = new FeedMergeEngine(postRepository, 0);
+        List<Post> timeline = List.of(
+                post(1L, 1L, Instant.parse("2024-01-02T00:30:00Z")),
+                post(2L, 1L, Instant.parse("2024-01-01T22:30:00Z")));
+
+        List<Post> page = engine.merge((b, n) -> olderThan(timeline, b, n), List.of(10L, 20L, 30L), PostCursor.NEWEST, 5);
+
+        assertThat(page).extracting(Post::getId).containsExactly(1L, 100L, 101L, 2L, 102L);
+        assertThat(page).isSortedAccordingTo(FeedMergeEngine.NEWEST_FIRST);
+    }
+
+    @Test
+    void merge_stopsOnceThePageIsFull_andRespectsCursor() {
+        var engine = new FeedMergeEngine(postRepository, 0);
+        PostCursor before = PostCursor.of(byAuthor.get(10L).get(2));
+
+        List<Post> page = engine.merge((b, n) -> List.of(), List.of(10L, 20L), before, 3);
+
+        assertThat(page).extracting(Post::getId).containsExactly(103L, 104L, 105L);
+        // one small probe per author, then the busy author refills only what the page still needs
+        assertThat(fetchSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void merge_appliesPerAuthorCap() {
+        var engine = new FeedMergeEngine(postRepository, 2);
+
+        List<Post> page = engine.merge((b, n) -> List.of(), List.of(10L, 20L), PostCursor.NEWEST, 10);
+
+        assertThat(page).extracting(Post::getId).containsExactly(100L, 101L, 200L);
+    }
+
+    @Test
+    void merge_withoutAuthors_readsOnlyTimeline() {
+        var engine = new FeedMergeEngine(postRepository, 0);
+        List<Post> timeline = List.of(post(1L, 1L, Instant.parse("2024-01-02T00:30:00Z")));
+
+        List<Post> page = engine.merge((b, n) -> olderThan(timeline, b, n), List.of(), PostCursor.NEWEST, 10);
+
+        assertThat(page).extracting(Post::getId).containsExactly(1L);
+        verify(postRepository, never()).findByAuthorIdBefore(anyLong(), any(), any(), eq(Limit.of(1)));
+    }
+
+    private static List<Post> olderThan(List<Post> posts, PostCursor before, int limit) {
+        return posts.stream()
+                .sorted(FeedMergeEngine.NEWEST_FIRST)
+                .filter(p -> Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId)
+                        .compare(p, Post.builder().createdAt(before.createdAt()).id(before.id()).build()) < 0)
+                .limit(limit)
+                .toList();
+    }
+
+    private static Post post(Long id, Long authorId, Instant createdAt) {
+        return Post.builder().id(id).author(User.builder().id(authorId).build()).title("t").body("b").createdAt(createdAt).build();
+    }
+}
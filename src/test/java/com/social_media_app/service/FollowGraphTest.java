@@ -0,0 +1,154 @@
+package com.social_media_app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FollowGraphTest {
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FollowGraph(jdbc, true);
+    }
+
+    @Test
+    void rebuild_loadsSortedAdjacencyInBothDirections_fromOneScan() throws Exception {
+        stubTable(new long[][]{{1, 2}, {1, 3}, {1, 7}, {2, 3}, {4, 3}});
+
+        graph.rebuild();
+
+        verify(jdbc, times(1)).query(anyString(), any(ResultSetExtractor.class));
+
+        assertThat(graph.following(1)).containsExactly(2, 3, 7);
+        assertThat(graph.following(2)).containsExactly(3);
+        assertThat(graph.followers(3)).containsExactly(1, 2, 4);
+        assertThat(graph.followerCount(7)).isEqualTo(1);
+        assertThat(graph.following(3)).isEmpty();
+        assertThat(graph.followers(99)).isEmpty();
+        assertThat(graph.withFollowersAtLeast(2)).containsExactly(3L);
+        // relation ids are the row numbers of the stubbed table
+        assertThat(graph.followingEdges(1).followIds()).containsExactly(1, 2, 3);
+        assertThat(graph.followerEdges(3).followIds()).containsExactly(2, 4, 5);
+    }
+
+    @Test
+    void follow_andUnfollow_keepArraysSorted_andAreIdempotent() {
+        graph.follow(1, 5, 10);
+        graph.follow(1, 2, 11);
+        graph.follow(1, 9, 12);
+        graph.follow(1, 5, 10);
+        graph.follow(3, 5, 13);
+
+        assertThat(graph.following(1)).containsExactly(2, 5, 9);
+        assertThat(graph.followingEdges(1).followIds()).containsExactly(11, 10, 12);
+        assertThat(graph.followers(5)).containsExactly(1, 3);
+        assertThat(graph.followerEdges(5).followIds()).containsExactly(10, 13);
+
+        graph.unfollow(1, 5);
+        graph.unfollow(1, 5);
+        graph.unfollow(7, 5);
+
+        assertThat(graph.following(1)).containsExactly(2, 9);
+        assertThat(graph.followingEdges(1).followIds()).containsExactly(11, 12);
+        assertThat(graph.followers(5)).containsExactly(3);
+
+        graph.unfollow(3, 5);
+        assertThat(graph.followers(5)).isEmpty();
+    }
+
+    @Test
+    void follow_insideTransaction_appliesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            graph.follow(1, 2, 1);
+            assertThat(graph.following(1)).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(graph.following(1)).containsExactly(2);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_replaysChangesMadeWhileLoading() throws Exception {
+        // the follows rows were read before 1 -> 3 was committed and before 1 -> 2 was removed
+        stubTable(new long[][]{{1, 2}}, () -> {
+            graph.follow(1, 3, 2);
+            graph.unfollow(1, 2);
+        });
+
+        graph.rebuild();
+
+        assertThat(graph.following(1)).containsExactly(3);
+        assertThat(graph.followingEdges(1).followIds()).containsExactly(2);
+        assertThat(graph.followers(3)).containsExactly(1);
+        assertThat(graph.followers(2)).isEmpty();
+    }
+
+    private void stubTable(long[][] edges) throws SQLException {
+        stubTable(edges, () -> {
+        });
+    }
+
+    @Test
+    void refresh_disabled_neverQueries() {
+        new FollowGraph(jdbc, false).refresh();
+
+        verifyNoInteractions(jdbc);
+    }
+
+    /**
+     * Serves {@code edges} as the follows table, the i-th edge with relation id i + 1; {@code duringLoad}
+     * runs once the scan has read it
+     */
+    private void stubTable(long[][] edges, Runnable duringLoad) throws SQLException {
+        long[][] rows = new long[edges.length][];
+        for (int i = 0; i < edges.length; i++) {
+            rows[i] = new long[]{edges[i][0], edges[i][1], i + 1};
+        }
+        Arrays.sort(rows, Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]));
+
+        when(jdbc.query(startsWith("select follower_id, followed_id, id"), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            Object result = inv.<ResultSetExtractor<?>>getArgument(1).extractData(rows(rows));
+            duringLoad.run();
+            return result;
+        });
+    }
+
+    private static ResultSet rows(long[][] rows) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] at = {-1};
+        when(rs.next()).thenAnswer(inv -> ++at[0] < rows.length);
+        when(rs.getLong(anyInt())).thenAnswer(inv -> rows[at[0]][inv.<Integer>getArgument(0) - 1]);
+        return rs;
+    }
+}
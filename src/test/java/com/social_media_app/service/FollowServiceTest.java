@@ -9,19 +9,17 @@ import com.social_media_app.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -33,6 +31,10 @@ class FollowServiceTest {
     private FollowRepository followRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private TimelineService timelineService;
+    @Mock
+    private FollowGraph followGraph;
 
     @InjectMocks
     private FollowService followService;
@@ -47,11 +49,10 @@ class FollowServiceTest {
     }
 
     @Test
-    void follow_success_whenNotFollowingYet() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
-        when(followRepository.existsByFollowerAndFollowed(alice, bob)).thenReturn(false);
-        when(followRepository.save(any(Follow.class))).thenAnswer(inv -> {
+    void follow_insertsAgainstReferences_withoutLoadingUsers() {
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(userRepository.getReferenceById(2L)).thenReturn(bob);
+        when(followRepository.saveAndFlush(any(Follow.class))).thenAnswer(inv -> {
             Follow f = inv.getArgument(0);
             f.setId(10L);
             return f;
@@ -63,16 +64,10 @@ class FollowServiceTest {
         assertThat(saved.getFollower()).isEqualTo(alice);
         assertThat(saved.getFollowed()).isEqualTo(bob);
 
-        // verify payload passed to save
-        ArgumentCaptor<Follow> captor = ArgumentCaptor.forClass(Follow.class);
-        verify(followRepository).save(captor.capture());
-        Follow toSave = captor.getValue();
-        assertThat(toSave.getFollower()).isEqualTo(alice);
-        assertThat(toSave.getFollowed()).isEqualTo(bob);
-
-        verify(userRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(2L);
-        verify(followRepository, times(1)).existsByFollowerAndFollowed(alice, bob);
+        verify(userRepository, never()).findById(any());
+        verify(followRepository, never()).existsByFollowerAndFollowed(any(), any());
+        verify(followGraph).follow(1L, 2L, 10L);
+        verify(timelineService).backfill(1L, 2L);
     }
 
     @Test
@@ -84,101 +79,103 @@ class FollowServiceTest {
     }
 
     @Test
-    void follow_throwsConflict_whenAlreadyFollowing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
-        when(followRepository.existsByFollowerAndFollowed(alice, bob)).thenReturn(true);
+    void follow_throwsConflict_whenUniqueConstraintRejectsDuplicate() {
+        stubInsertFailure(Follow.UK_FOLLOWER_FOLLOWED);
 
         assertThatThrownBy(() -> followService.follow(1L, 2L))
                 .isInstanceOf(ConflictException.class)
-                .hasMessageContaining("Already following");
+                .hasMessageContaining("Already following: 1 -> 2");
 
-        verify(followRepository, never()).save(any());
+        verifyNoInteractions(timelineService);
     }
 
     @Test
-    void follow_throwsNotFound_whenFollowerMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+    void follow_throwsNotFound_whenFollowerForeignKeyFails() {
+        stubInsertFailure(Follow.FK_FOLLOWER);
+
         assertThatThrownBy(() -> followService.follow(1L, 2L))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("Follower user not found");
-        verify(userRepository, never()).findById(2L); // short‑circuits after missing follower
+        verifyNoInteractions(timelineService);
     }
 
     @Test
-    void follow_throwsNotFound_whenFollowedMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+    void follow_throwsNotFound_whenFollowedForeignKeyFails() {
+        stubInsertFailure(Follow.FK_FOLLOWED);
 
         assertThatThrownBy(() -> followService.follow(1L, 2L))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("Followed user not found");
     }
 
+    @Test
+    void follow_rethrows_whenViolationIsUnrecognised() {
+        stubInsertFailure("some_other_constraint");
+
+        assertThatThrownBy(() -> followService.follow(1L, 2L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
     // --- unfollow ---
 
     @Test
-    void unfollow_deletes_whenRelationExists() {
-        Follow relation = Follow.builder().id(42L).follower(alice).followed(bob).build();
-
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
-        when(followRepository.findByFollowerAndFollowed(alice, bob))
-                .thenReturn(Optional.of(relation));
+    void unfollow_deletesById_andEvicts() {
+        when(followRepository.deleteByFollowerIdAndFollowedId(1L, 2L)).thenReturn(1);
 
         followService.unfollow(1L, 2L);
 
-        verify(followRepository).delete(relation);
+        verify(followGraph).unfollow(1L, 2L);
+        verify(timelineService).evict(1L, 2L);
+        verify(userRepository, never()).existsById(any());
     }
 
     @Test
     void unfollow_noop_whenRelationMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
-        when(followRepository.findByFollowerAndFollowed(alice, bob))
-                .thenReturn(Optional.empty());
+        when(followRepository.deleteByFollowerIdAndFollowedId(1L, 2L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
 
         followService.unfollow(1L, 2L);
 
-        verify(followRepository, never()).delete(any());
+        verifyNoInteractions(timelineService, followGraph);
     }
 
     @Test
     void unfollow_throwsNotFound_whenAnyUserMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(followRepository.deleteByFollowerIdAndFollowedId(1L, 2L)).thenReturn(0);
+
+        when(userRepository.existsById(1L)).thenReturn(false);
         assertThatThrownBy(() -> followService.unfollow(1L, 2L))
-                .isInstanceOf(NotFoundException.class);
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Follower user not found");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(false);
         assertThatThrownBy(() -> followService.unfollow(1L, 2L))
-                .isInstanceOf(NotFoundException.class);
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Followed user not found");
     }
 
     // --- listings ---
 
     @Test
-    void listFollowing_returnsRelations() {
-        Follow r1 = Follow.builder().id(1L).follower(alice).followed(bob).build();
+    void listFollowing_readsTheGraph() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(followRepository.findAllByFollower(alice)).thenReturn(List.of(r1));
-
-        List<Follow> result = followService.listFollowing(1L);
+        var edges = new FollowGraph.Edges(new long[]{2L}, new long[]{10L});
+        when(followGraph.followingEdges(1L)).thenReturn(edges);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getFollowed().getUsername()).isEqualTo("bob");
+        assertThat(followService.listFollowing(1L)).isSameAs(edges);
+        verifyNoInteractions(followRepository);
     }
 
     @Test
-    void listFollowers_returnsRelations() {
-        Follow r1 = Follow.builder().id(2L).follower(bob).followed(alice).build();
+    void listFollowers_readsTheGraph() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(followRepository.findAllByFollowed(alice)).thenReturn(List.of(r1));
+        var edges = new FollowGraph.Edges(new long[]{2L, 3L}, new long[]{10L, 11L});
+        when(followGraph.followerEdges(1L)).thenReturn(edges);
 
-        List<Follow> result = followService.listFollowers(1L);
-
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getFollower().getUsername()).isEqualTo("bob");
+        assertThat(followService.listFollowers(1L)).isSameAs(edges);
+        verifyNoInteractions(followRepository);
     }
 
     @Test
@@ -186,7 +183,7 @@ class FollowServiceTest {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> followService.listFollowing(99L))
                 .isInstanceOf(NotFoundException.class);
-        verify(followRepository, never()).findAllByFollower(any());
+        verifyNoInteractions(followGraph);
     }
 
     @Test
@@ -194,7 +191,14 @@ class FollowServiceTest {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> followService.listFollowers(99L))
                 .isInstanceOf(NotFoundException.class);
-        verify(followRepository, never()).findAllByFollowed(any());
+        verifyNoInteractions(followGraph);
+    }
+
+    private void stubInsertFailure(String constraintName) {
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(userRepository.getReferenceById(2L)).thenReturn(bob);
+        when(followRepository.saveAndFlush(any(Follow.class)))
+                .thenThrow(new DataIntegrityViolationException("violates " + constraintName.toUpperCase()));
     }
 
     private static User user(Long id, String username) {
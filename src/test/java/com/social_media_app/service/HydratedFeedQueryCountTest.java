@@ -0,0 +1,103 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Follow;
+import com.social_media_app.model.PostLike;
+import com.social_media_app.model.User;
+import com.social_media_app.model.dto.PostView;
+import com.social_media_app.repository.FollowRepository;
+import com.social_media_app.repository.PostLikeRepository;
+import com.social_media_app.repository.PostRepository;
+import com.social_media_app.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hydrated feed must cost a fixed number of statements per page, whatever the page size
+ */
+@DataJpaTest
+@Import({PostService.class, TimelineService.class, FollowGraph.class, FeedMergeEngine.class, LikeCounter.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class HydratedFeedQueryCountTest {
+
+    /** user exists + timeline slice + views; pulled authors come from the in-memory follow graph */
+    private static final long STATEMENTS_PER_PAGE = 3;
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(user("reader"));
+        for (int a = 0; a < 5; a++) {
+            User author = userRepository.save(user("author" + a));
+            followRepository.save(Follow.builder().follower(reader).followed(author).build());
+            for (int p = 0; p < 6; p++) {
+                var post = postService.createPost(author.getId(), "t" + a + p, "body");
+                if (p % 2 == 0) postLikeRepository.save(PostLike.builder().user(reader).post(post).build());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void hydratedFeed_usesConstantStatementsPerPage() {
+        long small = countStatements(3);
+        long large = countStatements(25);
+
+        assertThat(small).isEqualTo(STATEMENTS_PER_PAGE);
+        assertThat(large).isEqualTo(STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void hydratedFeed_resolvesAuthorAndLikes() {
+        Slice<PostView> slice = postService.hydratedFeedFor(reader.getId(), null, 30);
+
+        assertThat(slice.getContent()).hasSize(30);
+        assertThat(slice.getContent()).allSatisfy(v -> assertThat(v.authorUsername()).startsWith("author"));
+        assertThat(slice.getContent()).filteredOn(PostView::liked).hasSize(15);
+    }
+
+    private long countStatements(int pageSize) {
+        em.clear();
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        Slice<PostView> slice = postService.hydratedFeedFor(reader.getId(), null, pageSize);
+        slice.getContent().forEach(v -> assertThat(v.authorUsername()).isNotNull());
+
+        assertThat(slice.getContent()).hasSize(pageSize);
+        return stats.getPrepareStatementCount();
+    }
+
+    private static User user(String username) {
+        return User.builder().username(username).email(username + "@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.social_media_app.service;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntPredicate;
+
+/**
+ * S3-compatible stand-in for tests: keeps objects and in-flight multipart uploads in memory and
+ * checks part ETags on completion like the real service does. Unimplemented operations throw.
+ */
+class InMemoryS3Client implements S3Client {
+
+    final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    final List<String> aborted = new CopyOnWriteArrayList<>();
+    final List<Integer> partSizes = new CopyOnWriteArrayList<>();
+
+    /** Part numbers for which uploadPart fails */
+    IntPredicate failPart = part -> false;
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        objects.put(request.key(), read(body));
+        contentTypes.put(request.key(), request.contentType());
+        return PutObjectResponse.builder().eTag(etag(objects.get(request.key()))).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new TreeMap<>());
+        contentTypes.put(request.key(), request.contentType());
+        return CreateMultipartUploadResponse.builder().bucket(request.bucket()).key(request.key()).uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        if (failPart.test(request.partNumber())) {
+            throw new IllegalStateException("part " + request.partNumber() + " failed");
+        }
+        byte[] bytes = read(body);
+        partSizes.add(bytes.length);
+        uploads.get(request.uploadId()).put(request.partNumber(), bytes);
+        return UploadPartResponse.builder().eTag(etag(bytes)).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        TreeMap<Integer, byte[]> parts = uploads.remove(request.uploadId());
+        var out = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            byte[] bytes = parts.get(part.partNumber());
+            if (bytes == null || !etag(bytes).equals(part.eTag())) {
+                throw new IllegalStateException("InvalidPart " + part.partNumber());
+            }
+            out.writeBytes(bytes);
+        }
+        objects.put(request.key(), out.toByteArray());
+        return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.uploadId());
+        aborted.add(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (var in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] bytes) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+    }
+}
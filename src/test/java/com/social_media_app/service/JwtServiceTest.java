@@ -1,22 +1,46 @@
 package com.social_media_app.service;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class JwtServiceTest {
 
+    private static final String SECRET = "my-super-secret-key-which-is-long-enough";
+
     @Test
     void generate_and_parse_token_work_correctly() {
-        String secret = "my-super-secret-key-which-is-long-enough";
         long ttlMin = 15;
-        JwtService jwtService = new JwtService(secret, ttlMin);
+        JwtService jwtService = new JwtService(SECRET, ttlMin, 100, 30);
 
         String token = jwtService.generate("alice");
         String subject = jwtService.getSubject(token);
 
         assertThat(subject).isEqualTo("alice");
+        assertThat(jwtService.getSubject(token)).isEqualTo("alice");
+    }
+
+    @Test
+    void getSubject_rejectsTokenSignedWithAnotherKey_evenAfterCachingAValidOne() {
+        JwtService jwtService = new JwtService(SECRET, 15, 100, 30);
+        JwtService other = new JwtService("another-secret-key-which-is-long-enough!", 15, 100, 30);
+
+        jwtService.getSubject(jwtService.generate("alice"));
+
+        assertThatThrownBy(() -> jwtService.getSubject(other.generate("alice")))
+                .isInstanceOf(SignatureException.class);
     }
 
+    @Test
+    void getSubject_rejectsExpiredToken() {
+        JwtService jwtService = new JwtService(SECRET, -1, 100, 30);
 
-}
\ No newline at end of file
+        String token = jwtService.generate("alice");
+
+        assertThatThrownBy(() -> jwtService.getSubject(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+}
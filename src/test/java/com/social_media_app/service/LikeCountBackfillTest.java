@@ -0,0 +1,63 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.PostLike;
+import com.social_media_app.model.User;
+import com.social_media_app.repository.PostLikeRepository;
+import com.social_media_app.repository.PostRepository;
+import com.social_media_app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(LikeCountBackfill.class)
+@TestPropertySource(properties = "likes.counter.backfill-on-startup=true")
+class LikeCountBackfillTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private LikeCountBackfill backfill;
+
+    @Test
+    void run_countsLikesOfPostsStillAtZero_andLeavesMaintainedCountsAlone() {
+        User alice = userRepository.save(user("alice"));
+        User bob = userRepository.save(user("bob"));
+        Post legacy = postRepository.save(Post.builder().title("legacy").body("b").author(alice).build());
+        Post maintained = postRepository.save(Post.builder().title("maintained").body("b").author(alice).build());
+        Post unliked = postRepository.save(Post.builder().title("unliked").body("b").author(alice).build());
+        postLikeRepository.save(PostLike.builder().user(alice).post(legacy).build());
+        postLikeRepository.save(PostLike.builder().user(bob).post(legacy).build());
+        postLikeRepository.save(PostLike.builder().user(bob).post(maintained).build());
+        postLikeRepository.flush();
+        jdbc.update("update posts set like_count = 5 where id = ?", maintained.getId());
+
+        backfill.run(null);
+
+        assertThat(likeCount(legacy)).isEqualTo(2);
+        assertThat(likeCount(maintained)).isEqualTo(5);
+        assertThat(likeCount(unliked)).isZero();
+    }
+
+    private long likeCount(Post post) {
+        return jdbc.queryForObject("select like_count from posts where id = ?", Long.class, post.getId());
+    }
+
+    private static User user(String username) {
+        return User.builder().username(username).email(username + "@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
+    }
+}
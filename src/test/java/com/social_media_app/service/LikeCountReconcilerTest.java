@@ -0,0 +1,95 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.PostLike;
+import com.social_media_app.model.User;
+import com.social_media_app.repository.PostLikeRepository;
+import com.social_media_app.repository.PostRepository;
+import com.social_media_app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(LikeCountReconciler.class)
+class LikeCountReconcilerTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private LikeCountReconciler reconciler;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(user("alice"));
+        bob = userRepository.save(user("bob"));
+    }
+
+    @Test
+    void reconcile_correctsDriftSeenTwiceInARow() {
+        Post drifted = likedTwice(post("drifted", Instant.now()));
+        setLikeCount(drifted, 1);
+
+        assertThat(reconciler.reconcile()).isZero();
+        assertThat(likeCount(drifted)).isEqualTo(1);
+
+        assertThat(reconciler.reconcile()).isEqualTo(1);
+        assertThat(likeCount(drifted)).isEqualTo(2);
+    }
+
+    @Test
+    void reconcile_leavesDriftThatChangedBetweenRuns_andOldPosts() {
+        Post inFlight = likedTwice(post("in-flight", Instant.now()));
+        Post old = likedTwice(post("old", Instant.now().minus(Duration.ofDays(30))));
+        setLikeCount(inFlight, 0);
+        setLikeCount(old, 0);
+
+        reconciler.reconcile();
+        // the buffered delta got flushed in between
+        setLikeCount(inFlight, 1);
+
+        assertThat(reconciler.reconcile()).isZero();
+        assertThat(likeCount(inFlight)).isEqualTo(1);
+        assertThat(likeCount(old)).isZero();
+    }
+
+    private Post post(String title, Instant createdAt) {
+        return postRepository.save(Post.builder().title(title).body("b").author(alice).createdAt(createdAt).build());
+    }
+
+    private Post likedTwice(Post post) {
+        postLikeRepository.save(PostLike.builder().user(alice).post(post).build());
+        postLikeRepository.save(PostLike.builder().user(bob).post(post).build());
+        postLikeRepository.flush();
+        return post;
+    }
+
+    private void setLikeCount(Post post, long count) {
+        jdbc.update("update posts set like_count = ? where id = ?", count, post.getId());
+    }
+
+    private long likeCount(Post post) {
+        return jdbc.queryForObject("select like_count from posts where id = ?", Long.class, post.getId());
+    }
+
+    private static User user(String username) {
+        return User.builder().username(username).email(username + "@email.com").active(true).createdAt(Instant.now()).passwordHash("oq3ufctv90y4t").build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.social_media_app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCounterTest {
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private LikeCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new LikeCounter(jdbc);
+    }
+
+    @Test
+    void pending_accumulatesLikesAndUnlikes() {
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.decrement(1L);
+        counter.increment(2L);
+
+        assertThat(counter.pending(1L)).isEqualTo(1L);
+        assertThat(counter.pending(2L)).isEqualTo(1L);
+        assertThat(counter.pending(3L)).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesOneBatch_andResetsPending() {
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+        counter.decrement(2L);
+
+        counter.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(eq("update posts set like_count = like_count + ? where id = ?"), rows.capture());
+        assertThat(rows.getValue()).containsExactly(new Object[]{2L, 1L}); // post 2 netted out to zero
+        assertThat(counter.pending(1L)).isZero();
+    }
+
+    @Test
+    void flush_skipsDatabase_whenNothingPending() {
+        counter.flush();
+
+        verify(jdbc, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flush_requeuesDeltas_whenBatchFails() {
+        counter.increment(1L);
+        when(jdbc.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("db down"));
+
+        counter.flush();
+
+        assertThat(counter.pending(1L)).isEqualTo(1L);
+    }
+
+    @Test
+    void concurrentLikesAndFlushes_loseNothing() throws Exception {
+        List<Long> flushed = new ArrayList<>();
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            synchronized (flushed) {
+                rows.forEach(r -> flushed.add((Long) r[0]));
+            }
+            return new int[rows.size()];
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> likers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                likers.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) counter.increment(1L);
+                }));
+            }
+            while (likers.stream().anyMatch(f -> !f.isDone())) {
+                counter.flush();
+            }
+            for (Future<?> f : likers) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        counter.flush();
+
+        assertThat(flushed.stream().mapToLong(Long::longValue).sum()).isEqualTo(80_000L);
+        assertThat(counter.pending(1L)).isZero();
+    }
+}
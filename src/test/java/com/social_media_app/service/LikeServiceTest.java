@@ -5,6 +5,7 @@ import com.social_media_app.exceptions.NotFoundException;
 import com.social_media_app.model.Post;
 import com.social_media_app.model.PostLike;
 import com.social_media_app.model.User;
+import com.social_media_app.model.dto.LikeSummary;
 import com.social_media_app.repository.PostLikeRepository;
 import com.social_media_app.repository.PostRepository;
 import com.social_media_app.repository.UserRepository;
@@ -15,7 +16,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,7 +26,6 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,6 +38,8 @@ class LikeServiceTest {
     private UserRepository userRepository;
     @Mock
     private PostRepository postRepository;
+    @Mock
+    private LikeCounter likeCounter;
 
     @InjectMocks
     private LikeService likeService;
@@ -52,125 +56,171 @@ class LikeServiceTest {
     // --- like ---
 
     @Test
-    void like_success_whenNotLikedYet() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.of(post1));
-        when(likeRepository.existsByUserAndPost(alice, post1)).thenReturn(false);
-        when(likeRepository.save(any(PostLike.class))).thenAnswer(inv -> {
-            PostLike pl = inv.getArgument(0);
-            pl.setId(10L);
-            return pl;
-        });
+    void like_insertsAgainstReferences_withoutLoadingEntities() {
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(postRepository.getReferenceById(100L)).thenReturn(post1);
+        when(likeRepository.saveAndFlush(any(PostLike.class))).thenAnswer(inv -> inv.getArgument(0));
 
         likeService.like(1L, 100L);
 
         ArgumentCaptor<PostLike> captor = ArgumentCaptor.forClass(PostLike.class);
-        verify(likeRepository).save(captor.capture());
+        verify(likeRepository).saveAndFlush(captor.capture());
         PostLike saved = captor.getValue();
         assertThat(saved.getUser()).isEqualTo(alice);
         assertThat(saved.getPost()).isEqualTo(post1);
 
-        verify(likeRepository, times(1)).existsByUserAndPost(alice, post1);
+        verify(userRepository, never()).findById(anyLong());
+        verify(postRepository, never()).findById(anyLong());
+        verify(likeCounter).increment(100L);
     }
 
     @Test
-    void like_throwsConflict_whenAlreadyLiked() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.of(post1));
-        when(likeRepository.existsByUserAndPost(alice, post1)).thenReturn(true);
+    void like_throwsConflict_whenUniqueConstraintRejectsDuplicate() {
+        stubInsertFailure(PostLike.UK_USER_POST);
 
         assertThatThrownBy(() -> likeService.like(1L, 100L))
                 .isInstanceOf(ConflictException.class)
                 .hasMessageContaining("Already liked");
 
-        verify(likeRepository, never()).save(any());
+        verify(likeCounter, never()).increment(anyLong());
     }
 
     @Test
-    void like_throwsNotFound_whenUserMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+    void like_throwsNotFound_whenUserForeignKeyFails() {
+        stubInsertFailure(PostLike.FK_USER);
 
         assertThatThrownBy(() -> likeService.like(1L, 100L))
-                .isInstanceOf(NotFoundException.class);
-
-        verify(postRepository, never()).findById(anyLong());
-        verify(likeRepository, never()).existsByUserAndPost(any(), any());
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(LikeService.USER_NOT_FOUND_ID + 1);
     }
 
     @Test
-    void like_throwsNotFound_whenPostMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.empty());
+    void like_throwsNotFound_whenPostForeignKeyFails() {
+        stubInsertFailure(PostLike.FK_POST);
 
         assertThatThrownBy(() -> likeService.like(1L, 100L))
-                .isInstanceOf(NotFoundException.class);
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(LikeService.POST_NOT_FOUND_ID + 100);
+    }
+
+    @Test
+    void like_rethrows_whenViolationIsUnrecognised() {
+        stubInsertFailure("some_other_constraint");
 
-        verify(likeRepository, never()).existsByUserAndPost(any(), any());
+        assertThatThrownBy(() -> likeService.like(1L, 100L))
+                .isInstanceOf(DataIntegrityViolationException.class);
     }
 
     // --- unlike ---
 
     @Test
-    void unlike_deletes_whenExists() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.of(post1));
+    void unlike_deletesById_andDecrements() {
+        when(likeRepository.deleteByUserIdAndPostId(1L, 100L)).thenReturn(1);
+
+        likeService.unlike(1L, 100L);
+
+        verify(likeCounter).decrement(100L);
+        verify(userRepository, never()).existsById(anyLong());
+        verify(postRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void unlike_keepsCounter_whenNothingDeleted() {
+        when(likeRepository.deleteByUserIdAndPostId(1L, 100L)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.existsById(100L)).thenReturn(true);
 
         likeService.unlike(1L, 100L);
 
-        verify(likeRepository).deleteByUserAndPost(alice, post1);
+        verify(likeCounter, never()).decrement(anyLong());
     }
 
     @Test
     void unlike_throwsNotFound_whenUserOrPostMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(likeRepository.deleteByUserIdAndPostId(1L, 100L)).thenReturn(0);
+
+        when(userRepository.existsById(1L)).thenReturn(false);
         assertThatThrownBy(() -> likeService.unlike(1L, 100L))
-                .isInstanceOf(NotFoundException.class);
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(LikeService.USER_NOT_FOUND_ID);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.existsById(100L)).thenReturn(false);
         assertThatThrownBy(() -> likeService.unlike(1L, 100L))
-                .isInstanceOf(NotFoundException.class);
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(LikeService.POST_NOT_FOUND_ID);
     }
 
     // --- count & check ---
 
     @Test
-    void countLikes_returnsValue() {
-        when(postRepository.findById(100L)).thenReturn(Optional.of(post1));
-        when(likeRepository.countByPost(post1)).thenReturn(3L);
+    void countLikes_returnsStoredPlusPending() {
+        when(postRepository.findLikeCountById(100L)).thenReturn(Optional.of(3L));
+        when(likeCounter.pending(100L)).thenReturn(2L);
 
         long count = likeService.countLikes(100L);
-        assertThat(count).isEqualTo(3L);
+        assertThat(count).isEqualTo(5L);
+        verify(postRepository, never()).findById(anyLong());
     }
 
     @Test
     void countLikes_throwsNotFound_whenPostMissing() {
-        when(postRepository.findById(100L)).thenReturn(Optional.empty());
+        when(postRepository.findLikeCountById(100L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> likeService.countLikes(100L))
                 .isInstanceOf(NotFoundException.class);
     }
 
     @Test
-    void isLiked_returnsTrueOrFalse() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.of(post1));
+    void isLiked_returnsTrue_withSingleExistsQuery() {
+        when(likeRepository.existsByUserIdAndPostId(1L, 100L)).thenReturn(true);
 
-        when(likeRepository.existsByUserAndPost(alice, post1)).thenReturn(true);
         assertThat(likeService.isLiked(1L, 100L)).isTrue();
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void isLiked_returnsFalse_whenUserAndPostExist() {
+        when(likeRepository.existsByUserIdAndPostId(1L, 100L)).thenReturn(false);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.existsById(100L)).thenReturn(true);
 
-        when(likeRepository.existsByUserAndPost(alice, post1)).thenReturn(false);
         assertThat(likeService.isLiked(1L, 100L)).isFalse();
     }
 
     @Test
     void isLiked_throwsNotFound_whenUserOrPostMissing() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(likeRepository.existsByUserIdAndPostId(1L, 100L)).thenReturn(false);
+
+        when(userRepository.existsById(1L)).thenReturn(false);
         assertThatThrownBy(() -> likeService.isLiked(1L, 100L))
                 .isInstanceOf(NotFoundException.class);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(postRepository.findById(100L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.existsById(100L)).thenReturn(false);
         assertThatThrownBy(() -> likeService.isLiked(1L, 100L))
                 .isInstanceOf(NotFoundException.class);
     }
+
+    // --- summarize ---
+
+    @Test
+    void summarize_addsPendingDeltas_andKeepsRequestedOrder() {
+        when(likeRepository.summarize(1L, List.of(200L, 100L, 300L, 100L)))
+                .thenReturn(List.of(new LikeSummary(100L, 3L, true), new LikeSummary(200L, 0L, false)));
+        when(likeCounter.pending(100L)).thenReturn(1L);
+        when(likeCounter.pending(200L)).thenReturn(0L);
+
+        List<LikeSummary> result = likeService.summarize(1L, List.of(200L, 100L, 300L, 100L));
+
+        assertThat(result).containsExactly(new LikeSummary(200L, 0L, false), new LikeSummary(100L, 4L, true));
+        verify(userRepository, never()).findById(anyLong());
+        verify(postRepository, never()).findById(anyLong());
+    }
+
+    private void stubInsertFailure(String constraintName) {
+        when(userRepository.getReferenceById(1L)).thenReturn(alice);
+        when(postRepository.getReferenceById(100L)).thenReturn(post1);
+        when(likeRepository.saveAndFlush(any(PostLike.class)))
+                .thenThrow(new DataIntegrityViolationException("violates " + constraintName.toUpperCase()));
+    }
 }
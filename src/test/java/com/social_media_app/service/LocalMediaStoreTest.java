@@ -0,0 +1,129 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.model.MediaVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class LocalMediaStoreTest {
+
+    @TempDir
+    Path root;
+
+    LocalMediaStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new LocalMediaStore(root, "http://media.test/", "secret", 1024);
+    }
+
+    @Test
+    void upload_writesUnderPrefix_withContentType() throws Exception {
+        var file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", "jpeg-bytes".getBytes());
+
+        String key = store.upload("uploads/alex", file);
+
+        assertThat(key).startsWith("uploads/alex/");
+        assertThat(Files.readString(root.resolve(key))).isEqualTo("jpeg-bytes");
+        assertThat(store.head(key)).hasValueSatisfying(head -> {
+            assertThat(head.contentType()).isEqualTo("image/jpeg");
+            assertThat(head.size()).isEqualTo(10);
+            assertThat(head.eTag()).startsWith("\"a-");
+        });
+        assertThat(store.localPath(key)).contains(root.resolve(key));
+        try (InputStream in = store.open(key)) {
+            assertThat(in.readAllBytes()).isEqualTo("jpeg-bytes".getBytes());
+        }
+    }
+
+    @Test
+    void upload_handsTheSpooledFileToTheContainer_insteadOfStreamingIt() throws Exception {
+        var file = spy(new MockMultipartFile("file", "clip.mp4", "video/mp4", new byte[4096]));
+
+        String key = store.upload("uploads/alex", file);
+
+        assertThat(root.resolve(key)).hasSize(4096);
+        verify(file).transferTo(any(File.class));
+        verify(file, never()).getInputStream();
+        try (var files = Files.list(root.resolve("uploads/alex"))) {
+            assertThat(files.map(f -> f.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void uploadStream_overLimit_leavesNothingBehind() throws Exception {
+        assertThatThrownBy(() -> store.uploadStream("uploads/alex", new ByteArrayInputStream(new byte[2048]), "video/mp4"))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        try (var files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void storeHeadDelete_roundTrip() throws Exception {
+        String key = MediaVariant.THUMBNAIL.keyFor("uploads/alex/k");
+        store.store(key, new byte[]{1, 2, 3}, "image/jpeg");
+
+        assertThat(store.head(key)).hasValueSatisfying(head -> assertThat(head.size()).isEqualTo(3));
+
+        store.delete(key);
+        assertThat(store.head(key)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    void keysOutsideTheRoot_areRejected() {
+        assertThatThrownBy(() -> store.open("../escape")).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> store.path("uploads/alex/k.content-type")).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void presignedUrl_verifiesOnlyUntamperedAndUnexpired() {
+        URL url = store.presignedUrl("uploads/alex/a b", Duration.ofMinutes(10));
+        var params = UriComponentsBuilder.fromUriString(url.toString()).build().getQueryParams();
+        long expires = Long.parseLong(params.getFirst("expires"));
+        String signature = params.getFirst("signature");
+
+        assertThat(url.toString()).startsWith("http://media.test/api/media/files/uploads/alex/a%20b?");
+        assertThat(store.verify("uploads/alex/a b", expires, signature)).isTrue();
+        assertThat(store.verify("uploads/alex/other", expires, signature)).isFalse();
+        assertThat(store.verify("uploads/alex/a b", expires + 60, signature)).isFalse();
+
+        var expired = UriComponentsBuilder.fromUriString(store.presignedUrl("uploads/alex/a b", Duration.ofSeconds(-1)).toString())
+                .build().getQueryParams();
+        assertThat(store.verify("uploads/alex/a b", Long.parseLong(expired.getFirst("expires")), expired.getFirst("signature")))
+                .isFalse();
+    }
+
+    @Test
+    void transferTo_copiesTheRequestedRange() throws Exception {
+        store.store("k", "0123456789".getBytes(), "text/plain");
+        var out = new ByteArrayOutputStream();
+
+        store.transferTo("k", 2, 5, Channels.newChannel(out));
+
+        assertThat(out.toString()).isEqualTo("23456");
+    }
+}
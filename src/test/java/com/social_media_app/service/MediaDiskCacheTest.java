@@ -0,0 +1,134 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaDiskCacheTest {
+
+    @TempDir
+    Path dir;
+
+    MediaStore store;
+    SimpleMeterRegistry registry;
+    MediaDiskCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = mock(MediaStore.class);
+        registry = new SimpleMeterRegistry();
+        cache = new MediaDiskCache(store, registry, dir, 100, 60);
+    }
+
+    @Test
+    void miss_copiesToDisk_andLaterHitsNeitherHeadNorOpenTheStore() throws Exception {
+        stub("a", 50);
+
+        MediaDiskCache.Entry first = cache.get("a");
+        MediaDiskCache.Entry second = cache.get("a");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.file()).startsWith(dir).hasSize(50);
+        assertThat(first.eTag()).isEqualTo("\"a\"");
+        verify(store, times(1)).head("a");
+        verify(store, times(1)).open("a");
+        assertThat(registry.get("cache.gets").tag("cache", "media-disk").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void overMaxBytes_evictsAnEntry_andDeletesItsCopy() throws Exception {
+        stub("a", 50);
+        stub("b", 50);
+        stub("c", 50);
+
+        var copies = List.of(cache.get("a").file(), cache.get("b").file(), cache.get("c").file());
+        cache.cleanUp();
+
+        for (int i = 0; i < 50 && copies.stream().allMatch(Files::exists); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(copies.stream().filter(Files::exists)).hasSize(2);
+    }
+
+    @Test
+    void openedFile_staysReadable_afterItsEvictionDeletesIt() throws Exception {
+        stub("a", 50);
+        MediaDiskCache.Entry entry = cache.get("a");
+
+        var resource = (MediaDiskCache.OpenFile) cache.resource(entry);
+        Files.delete(entry.file());
+
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(10)).isEqualTo(10);
+            assertThat(in.readAllBytes()).hasSize(40);
+        }
+        resource.close();
+    }
+
+    @Test
+    void rangeOfALargeObject_isReadFromTheStoreAsThatRange() throws Exception {
+        stub("big", 61);
+        when(store.open("big", 20, 5)).thenReturn(new ByteArrayInputStream(new byte[5]));
+
+        var resource = cache.resource(cache.get("big"), 20, 5);
+
+        assertThat(resource.contentLength()).isEqualTo(5);
+        assertThat(resource.getInputStream().readAllBytes()).hasSize(5);
+        verify(store, never()).open("big");
+    }
+
+    @Test
+    void largeObjects_areStreamedFromTheStore_uncached() throws Exception {
+        stub("big", 61);
+
+        MediaDiskCache.Entry entry = cache.get("big");
+
+        assertThat(entry.file()).isNull();
+        assertThat(cache.resource(entry).contentLength()).isEqualTo(61);
+        assertThat(cache.resource(entry).getInputStream().readAllBytes()).hasSize(61);
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void localStores_areReadInPlace() throws Exception {
+        Path file = Files.write(dir.resolve("elsewhere"), new byte[10]);
+        when(store.head("l")).thenReturn(Optional.of(new MediaStore.StoredObject("image/png", 10, "\"l\"")));
+        when(store.localPath("l")).thenReturn(Optional.of(file));
+
+        assertThat(cache.get("l").file()).isEqualTo(file);
+        verify(store, never()).open("l");
+    }
+
+    @Test
+    void missingObject_isNotFound() throws Exception {
+        when(store.head("nope")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cache.get("nope")).isInstanceOf(NotFoundException.class);
+    }
+
+    private void stub(String key, int size) throws Exception {
+        when(store.head(key)).thenReturn(Optional.of(new MediaStore.StoredObject("image/jpeg", size, "\"" + key + "\"")));
+        when(store.localPath(key)).thenReturn(Optional.empty());
+        when(store.open(key)).thenAnswer(inv -> new ByteArrayInputStream(new byte[size]));
+    }
+}
@@ -0,0 +1,298 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.NotFoundException;
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.model.User;
+import com.social_media_app.repository.MediaObjectRepository;
+import com.social_media_app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MediaServiceTest {
+
+    @Mock
+    private S3StorageService s3;
+    @Mock
+    private ObjectProvider<S3StorageService> s3Provider;
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private MediaVariantProcessor mediaVariantProcessor;
+
+    private MediaService mediaService;
+    private final List<Runnable> registrations = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mediaService = new MediaService(s3, s3Provider, mediaObjectRepository, userRepository, mediaVariantProcessor,
+                registrations::add, 50_000_000L);
+    }
+
+    @Test
+    void upload_newContent_storesTheFile_andRecordsItsHash() throws Exception {
+        var file = new MockMultipartFile("file", "meme.png", "image/png", "meme".getBytes());
+        var alice = User.builder().id(1L).username("alice").build();
+        when(mediaObjectRepository.findBySha256(any())).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(s3.upload("uploads/alice", file)).thenReturn("uploads/alice/k");
+        when(mediaObjectRepository.saveAndFlush(any(MediaObject.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        MediaObject saved = mediaService.upload("alice", file);
+
+        assertThat(saved.getObjectKey()).isEqualTo("uploads/alice/k");
+        assertThat(saved.getSha256()).hasSize(64).isEqualTo(sha256Hex("meme"));
+        assertThat(saved.getSize()).isEqualTo(4L);
+        verify(mediaVariantProcessor).submit(saved);
+    }
+
+    @Test
+    void upload_knownContent_neverCallsTheStore_andAddsAReference() throws Exception {
+        var file = new MockMultipartFile("file", "meme.png", "image/png", "meme".getBytes());
+        var existing = MediaObject.builder().id(7L).objectKey("uploads/bob/k").build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(mediaObjectRepository.findBySha256(sha256Hex("meme"))).thenReturn(Optional.of(existing));
+
+        assertThat(mediaService.upload("alice", file)).isSameAs(existing);
+        verify(mediaObjectRepository).incrementRefCount(7L);
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(s3, mediaVariantProcessor);
+    }
+
+    @Test
+    void uploadStream_knownContent_dropsTheNewCopy_andAddsAReference() throws Exception {
+        var existing = MediaObject.builder().id(7L).objectKey("uploads/bob/k").build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(s3.uploadStream(eq("uploads/alice"), any(), eq("video/mp4"))).thenAnswer(drainTo("uploads/alice/k"));
+        when(mediaObjectRepository.findBySha256(sha256Hex("meme"))).thenReturn(Optional.of(existing));
+
+        assertThat(mediaService.upload("alice", new ByteArrayInputStream("meme".getBytes()), "video/mp4")).isSameAs(existing);
+        verify(s3).delete("uploads/alice/k");
+        verify(mediaObjectRepository).incrementRefCount(7L);
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(mediaVariantProcessor);
+    }
+
+    @Test
+    void upload_losingAConcurrentRace_dropsItsCopy_andReturnsTheWinner() throws Exception {
+        var file = new MockMultipartFile("file", "meme.png", "image/png", "meme".getBytes());
+        var winner = MediaObject.builder().id(8L).objectKey("uploads/bob/k").build();
+        when(mediaObjectRepository.findBySha256(any())).thenReturn(Optional.empty(), Optional.of(winner));
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(s3.upload("uploads/alice", file)).thenReturn("uploads/alice/k");
+        when(mediaObjectRepository.saveAndFlush(any(MediaObject.class))).thenThrow(new DataIntegrityViolationException("dup",
+                new SQLException("Unique index or primary key violation: \"PUBLIC." + MediaObject.UK_SHA256.toUpperCase() + "\"")));
+
+        assertThat(mediaService.upload("alice", file)).isSameAs(winner);
+        verify(s3).delete("uploads/alice/k");
+        verify(mediaObjectRepository).incrementRefCount(8L);
+    }
+
+    @Test
+    void uploadAsync_knownContent_neverStartsTheUpload() throws Exception {
+        var file = new MockMultipartFile("file", "meme.png", "image/png", "meme".getBytes());
+        var existing = MediaObject.builder().id(7L).objectKey("uploads/bob/k").build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(mediaObjectRepository.findBySha256(sha256Hex("meme"))).thenReturn(Optional.of(existing));
+
+        assertThat(mediaService.uploadAsync("alice", file).join()).isSameAs(existing);
+        verify(mediaObjectRepository).incrementRefCount(7L);
+        verifyNoInteractions(s3, s3Provider, mediaVariantProcessor);
+    }
+
+    @Test
+    void uploadAsync_newContent_registersOnTheExecutor_onceTheUploadCompletes() throws Exception {
+        var file = new MockMultipartFile("file", "meme.png", "image/png", "meme".getBytes());
+        var upload = new CompletableFuture<String>();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(mediaObjectRepository.findBySha256(any())).thenReturn(Optional.empty());
+        when(s3Provider.getObject()).thenReturn(s3);
+        when(s3.uploadAsync(eq("uploads/alice"), any(), eq("image/png"))).thenReturn(upload);
+        when(mediaObjectRepository.saveAndFlush(any(MediaObject.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        CompletableFuture<MediaObject> result = mediaService.uploadAsync("alice", file);
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+
+        upload.complete("uploads/alice/k");
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+        assertThat(registrations).hasSize(1);
+
+        registrations.remove(0).run();
+        assertThat(result.join().getSha256()).isEqualTo(sha256Hex("meme"));
+        assertThat(result.join().getObjectKey()).isEqualTo("uploads/alice/k");
+        verify(mediaVariantProcessor).submit(result.join());
+    }
+
+    @Test
+    void complete_multipart_completesInS3_thenRegistersHeadMetadata() throws Exception {
+        var parts = List.of(CompletedPart.builder().partNumber(1).eTag("e1").build());
+        var alice = User.builder().id(1L).username("alice").build();
+        when(s3Provider.getObject()).thenReturn(s3);
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        when(s3.head("uploads/alice/k")).thenReturn(Optional.of(new MediaStore.StoredObject("video/mp4", 12_000_000L, "\"etag-2\"")));
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(mediaObjectRepository.saveAndFlush(any(MediaObject.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        MediaObject saved = mediaService.complete("alice", "uploads/alice/k", "up-1", parts, 12_000_000L);
+
+        verify(s3).completeMultipart("uploads/alice/k", "up-1", parts);
+        assertThat(saved.getOwner()).isEqualTo(alice);
+        assertThat(saved.getContentType()).isEqualTo("video/mp4");
+        assertThat(saved.getSize()).isEqualTo(12_000_000L);
+        verify(mediaVariantProcessor).submit(saved);
+    }
+
+    @Test
+    void complete_largerThanDeclared_deletesTheObject_andRejectsIt() throws Exception {
+        when(s3Provider.getObject()).thenReturn(s3);
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        when(s3.head("uploads/alice/k")).thenReturn(Optional.of(new MediaStore.StoredObject("video/mp4", 12_000_001L, "\"e\"")));
+
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/alice/k", "up-1", List.of(), 12_000_000L))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        verify(s3).delete("uploads/alice/k");
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void complete_multipartPartsOverTheDeclaredSize_areAbortedWithoutBeingAssembled() throws Exception {
+        when(s3Provider.getObject()).thenReturn(s3);
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        when(s3.uploadedBytes("uploads/alice/k", "up-1")).thenReturn(12_000_001L);
+
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/alice/k", "up-1", List.of(), 12_000_000L))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        verify(s3).abortMultipart("uploads/alice/k", "up-1");
+        verify(s3, never()).completeMultipart(any(), any(), any());
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void complete_failedMultipartCompletion_abortsTheUpload() throws Exception {
+        var parts = List.of(CompletedPart.builder().partNumber(1).eTag("wrong").build());
+        when(s3Provider.getObject()).thenReturn(s3);
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("InvalidPart 1")).when(s3).completeMultipart("uploads/alice/k", "up-1", parts);
+
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/alice/k", "up-1", parts, 12_000_000L))
+                .hasMessage("InvalidPart 1");
+        verify(s3).abortMultipart("uploads/alice/k", "up-1");
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void complete_largerThanTheLimit_isRejected_whateverWasDeclared() throws Exception {
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        when(s3.head("uploads/alice/k")).thenReturn(Optional.of(new MediaStore.StoredObject("video/mp4", 60_000_000L, "\"e\"")));
+
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/alice/k", null, List.of(), Long.MAX_VALUE))
+                .isInstanceOfSatisfying(MaxUploadSizeExceededException.class,
+                        ex -> assertThat(ex.getMaxUploadSize()).isEqualTo(50_000_000L));
+        verify(s3).delete("uploads/alice/k");
+    }
+
+    @Test
+    void requireDownloadable_acceptsRegisteredObjects_andTheirGeneratedVariants() {
+        var ready = MediaObject.builder().objectKey("uploads/alice/b").variantsReady(true).build();
+        var pending = MediaObject.builder().objectKey("uploads/alice/c").build();
+        when(mediaObjectRepository.findByObjectKey(any())).thenReturn(Optional.empty());
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/b")).thenReturn(Optional.of(ready));
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/c")).thenReturn(Optional.of(pending));
+
+        mediaService.requireDownloadable("uploads/alice/b");
+        mediaService.requireDownloadable("uploads/alice/b.thumbnail.jpg");
+
+        assertThatThrownBy(() -> mediaService.requireDownloadable("uploads/alice/c.feed.jpg"))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> mediaService.requireDownloadable("uploads/bob/unregistered"))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void presignedUrl_servesVariantOnceReady_elseOriginal() throws Exception {
+        var pending = MediaObject.builder().objectKey("uploads/alice/a").build();
+        var ready = MediaObject.builder().objectKey("uploads/alice/b").variantsReady(true).build();
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/a")).thenReturn(Optional.of(pending));
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/b")).thenReturn(Optional.of(ready));
+        when(s3.presignedUrl("uploads/alice/a", Duration.ofHours(1))).thenReturn(new URL("https://example.com/a"));
+        when(s3.presignedUrl("uploads/alice/b", MediaVariant.THUMBNAIL, Duration.ofHours(1))).thenReturn(new URL("https://example.com/b-thumb"));
+
+        assertThat(mediaService.presignedUrl("uploads/alice/a", MediaVariant.THUMBNAIL, Duration.ofHours(1)))
+                .hasToString("https://example.com/a");
+        assertThat(mediaService.presignedUrl("uploads/alice/b", MediaVariant.THUMBNAIL, Duration.ofHours(1)))
+                .hasToString("https://example.com/b-thumb");
+    }
+
+    @Test
+    void complete_alreadyRegistered_isIdempotent() throws Exception {
+        var existing = MediaObject.builder().id(5L).objectKey("uploads/alice/k").build();
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.of(existing));
+
+        assertThat(mediaService.complete("alice", "uploads/alice/k", null, List.of(), 10L)).isSameAs(existing);
+        verifyNoInteractions(s3);
+    }
+
+    @Test
+    void complete_someoneElsesKey_isNotFound() {
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/bob/k", null, List.of(), 10L))
+                .isInstanceOf(NotFoundException.class);
+        verifyNoInteractions(s3, mediaObjectRepository);
+    }
+
+    @Test
+    void complete_objectNotInBucket_isNotFound() throws Exception {
+        when(mediaObjectRepository.findByObjectKey("uploads/alice/k")).thenReturn(Optional.empty());
+        when(s3.head("uploads/alice/k")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> mediaService.complete("alice", "uploads/alice/k", null, List.of(), 10L))
+                .isInstanceOf(NotFoundException.class);
+        verify(mediaObjectRepository, never()).saveAndFlush(any());
+    }
+
+    /** Reads the upload body to the end like a real store would, then answers {@code key} */
+    private static Answer<String> drainTo(String key) {
+        return inv -> {
+            inv.<InputStream>getArgument(1).transferTo(OutputStream.nullOutputStream());
+            return key;
+        };
+    }
+
+    private static String sha256Hex(String s) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.MediaObject;
+import com.social_media_app.model.MediaVariant;
+import com.social_media_app.repository.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MediaVariantProcessorTest {
+
+    S3StorageService s3;
+    MediaObjectRepository media;
+    MediaVariantProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        s3 = mock(S3StorageService.class);
+        media = mock(MediaObjectRepository.class);
+        processor = new MediaVariantProcessor(s3, media, new SimpleMeterRegistry(), 1, 4, 15_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void process_storesEveryVariantAsBoundedJpeg_thenMarksReady() throws Exception {
+        when(s3.open("uploads/alex/k")).thenReturn(new ByteArrayInputStream(png(4000, 3000)));
+
+        processor.process(7L, "uploads/alex/k");
+
+        for (MediaVariant variant : MediaVariant.values()) {
+            ArgumentCaptor<byte[]> jpeg = ArgumentCaptor.forClass(byte[].class);
+            verify(s3).store(eq(variant.keyFor("uploads/alex/k")), jpeg.capture(), eq("image/jpeg"));
+            BufferedImage stored = ImageIO.read(new ByteArrayInputStream(jpeg.getValue()));
+            assertThat(stored.getWidth()).isEqualTo(variant.maxEdge());
+            assertThat(stored.getHeight()).isEqualTo(variant.maxEdge() * 3 / 4);
+        }
+        verify(media).markVariantsReady(7L);
+    }
+
+    @Test
+    void scale_neverUpscales() {
+        BufferedImage small = MediaVariantProcessor.scale(new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB), 320);
+
+        assertThat(small.getWidth()).isEqualTo(100);
+        assertThat(small.getHeight()).isEqualTo(50);
+        assertThat(small.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Test
+    void process_oversizedOrUndecodable_isSkipped() throws Exception {
+        when(s3.open("big")).thenReturn(new ByteArrayInputStream(png(4000, 4000)));
+        when(s3.open("text")).thenReturn(new ByteArrayInputStream("not an image".getBytes()));
+
+        processor.process(1L, "big");
+        processor.process(2L, "text");
+
+        verify(s3, never()).store(anyString(), any(), anyString());
+        verify(media, never()).markVariantsReady(any());
+    }
+
+    @Test
+    void submit_nonImage_isIgnored() {
+        processor.submit(MediaObject.builder().id(1L).objectKey("uploads/alex/v").contentType("video/mp4").build());
+
+        verifyNoInteractions(s3, media);
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
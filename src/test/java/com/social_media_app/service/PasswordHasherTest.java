@@ -0,0 +1,98 @@
+package com.social_media_app.service;
+
+import com.social_media_app.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_runOnHashingPool() {
+        hasher = new PasswordHasher(encoder, new SimpleMeterRegistry(), 2, 4);
+        when(encoder.encode("secret")).thenAnswer(inv -> Thread.currentThread().getName());
+        when(encoder.matches("secret", "HASH")).thenReturn(true);
+
+        assertThat(hasher.encode("secret")).startsWith("password-hashing-");
+        assertThat(hasher.matches("secret", "HASH")).isTrue();
+    }
+
+    @Test
+    void rejectsImmediately_whenPoolAndQueueAreFull() throws Exception {
+        hasher = new PasswordHasher(encoder, new SimpleMeterRegistry(), 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(encoder.encode("slow")).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return "HASH";
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("slow"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("slow"));
+        awaitQueued();
+
+        assertThatThrownBy(() -> hasher.encode("slow"))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("HASH");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("HASH");
+    }
+
+    @Test
+    void propagatesEncoderFailures() {
+        hasher = new PasswordHasher(encoder, new SimpleMeterRegistry(), 1, 1);
+        when(encoder.encode("bad")).thenThrow(new IllegalArgumentException("bad input"));
+
+        assertThatThrownBy(() -> hasher.encode("bad"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad input");
+    }
+
+    @Test
+    void needsRehash_forLegacyOrCheaperHashes_only() {
+        PasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(5)));
+        ((DelegatingPasswordEncoder) delegating).setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        hasher = new PasswordHasher(delegating, new SimpleMeterRegistry(), 1, 1);
+
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String cheaper = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+        String current = hasher.encode("secret");
+
+        assertThat(hasher.matches("secret", legacy)).isTrue();
+        assertThat(hasher.needsRehash(legacy)).isTrue();
+        assertThat(hasher.needsRehash(cheaper)).isTrue();
+        assertThat(current).startsWith("{bcrypt}$2a$05$");
+        assertThat(hasher.needsRehash(current)).isFalse();
+    }
+
+    private void awaitQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hasher.queued() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
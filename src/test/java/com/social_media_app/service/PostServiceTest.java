@@ -1,10 +1,10 @@
 package com.social_media_app.service;
 
 import com.social_media_app.exceptions.NotFoundException;
-import com.social_media_app.model.Follow;
 import com.social_media_app.model.Post;
 import com.social_media_app.model.User;
-import com.social_media_app.repository.FollowRepository;
+import com.social_media_app.model.dto.PostCursor;
+import com.social_media_app.model.dto.PostView;
 import com.social_media_app.repository.PostRepository;
 import com.social_media_app.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +14,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +29,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,7 +42,11 @@ class PostServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private FollowRepository followRepository;
+    private TimelineService timelineService;
+    @Mock
+    private FeedMergeEngine feedMergeEngine;
+    @Mock
+    private LikeCounter likeCounter;
 
     @InjectMocks
     private PostService postService;
@@ -78,6 +86,7 @@ class PostServiceTest {
         assertThat(toSave.getAuthor()).isEqualTo(alice);
         assertThat(toSave.getTitle()).isEqualTo("Hello");
         assertThat(toSave.getBody()).isEqualTo("Body");
+        verify(timelineService).fanOut(created);
     }
 
     @Test
@@ -88,6 +97,7 @@ class PostServiceTest {
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("Author not found");
         verify(postRepository, never()).save(any());
+        verify(timelineService, never()).fanOut(any());
     }
 
     // --- getById ---
@@ -139,46 +149,165 @@ class PostServiceTest {
         verify(postRepository, never()).findAllByAuthorOrderByCreatedAtDesc(any(), any());
     }
 
+    @Test
+    void listByAuthor_keyset_returnsSliceWithNext() {
+        Post p1 = post(3L, alice, "2024-01-03T00:00:00Z");
+        Post p2 = post(2L, alice, "2024-01-02T00:00:00Z");
+        Post p3 = post(1L, alice, "2024-01-01T00:00:00Z");
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.findByAuthorIdBefore(1L, PostCursor.NEWEST.createdAt(), PostCursor.NEWEST.id(), Limit.of(3)))
+                .thenReturn(List.of(p1, p2, p3));
+
+        Slice<Post> slice = postService.listByAuthor(1L, null, 2);
+
+        assertThat(slice.getContent()).containsExactly(p1, p2);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    void listByAuthor_keyset_continuesAfterCursor() {
+        Post p3 = post(1L, alice, "2024-01-01T00:00:00Z");
+        PostCursor cursor = new PostCursor(Instant.parse("2024-01-02T00:00:00Z"), 2L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(postRepository.findByAuthorIdBefore(1L, cursor.createdAt(), 2L, Limit.of(3))).thenReturn(List.of(p3));
+
+        Slice<Post> slice = postService.listByAuthor(1L, cursor, 2);
+
+        assertThat(slice.getContent()).containsExactly(p3);
+        assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    void listByAuthor_keyset_throwsNotFound_whenAuthorMissing() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThatThrownBy(() -> postService.listByAuthor(1L, null, 10))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Author not found");
+    }
+
     // --- feedFor ---
 
     @Test
-    void feedFor_returnsEmpty_whenUserFollowsNobody() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(followRepository.findAllByFollower(alice)).thenReturn(List.of());
+    void feedFor_returnsEmpty_whenTimelineEmpty() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(timelineService.read(1L, List.of(), pageable)).thenReturn(Page.empty(pageable));
 
         Page<Post> page = postService.feedFor(1L, pageable);
 
         assertThat(page.getTotalElements()).isZero();
         assertThat(page.getContent()).isEmpty();
-        verify(postRepository, never()).findAllByAuthorIdInOrderByCreatedAtDesc(anyList(), any());
     }
 
     @Test
-    void feedFor_returnsPosts_fromFollowedAuthors() {
-        // alice follows bob
-        Follow f = Follow.builder().id(10L).follower(alice).followed(bob).build();
+    void feedFor_returnsPosts_fromTimeline() {
         Post b1 = Post.builder().id(11L).author(bob).title("B1").body("..").build();
         Post b2 = Post.builder().id(12L).author(bob).title("B2").body("..").build();
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
-        when(followRepository.findAllByFollower(alice)).thenReturn(List.of(f));
-        when(postRepository.findAllByAuthorIdInOrderByCreatedAtDesc(List.of(2L), pageable))
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(timelineService.read(1L, List.of(), pageable))
                 .thenReturn(new PageImpl<>(List.of(b1, b2), pageable, 2));
 
         Page<Post> feed = postService.feedFor(1L, pageable);
 
         assertThat(feed.getTotalElements()).isEqualTo(2);
         assertThat(feed.getContent()).extracting(Post::getAuthor).containsOnly(bob);
+        verify(postRepository, never()).findAllByAuthorIdInOrderByCreatedAtDesc(anyList(), any());
+    }
+
+    @Test
+    void feedFor_mergesPulledCelebrityPosts_intoTimeline() {
+        Post b1 = post(11L, bob, "2024-01-01T00:00:00Z");
+        Post b2 = post(12L, bob, "2024-01-03T00:00:00Z");
+        Post c1 = post(21L, User.builder().id(3L).build(), "2024-01-02T00:00:00Z");
+        Pageable secondPage = PageRequest.of(1, 2);
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(timelineService.pulledAuthorIds(1L)).thenReturn(List.of(3L));
+        when(feedMergeEngine.merge(any(), eq(List.of(3L)), eq(PostCursor.NEWEST), eq(4)))
+                .thenReturn(List.of(b2, c1, b1));
+        when(timelineService.count(1L, List.of(3L))).thenReturn(2L);
+        when(postRepository.countByAuthorIdIn(List.of(3L))).thenReturn(1L);
+
+        Page<Post> feed = postService.feedFor(1L, secondPage);
+
+        assertThat(feed.getContent()).extracting(Post::getId).containsExactly(11L);
+        assertThat(feed.getTotalElements()).isEqualTo(3);
+        assertThat(feed.getNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void feedFor_keyset_mergesTimelineAndPulledAuthors() {
+        Post b2 = post(12L, bob, "2024-01-03T00:00:00Z");
+        Post c1 = post(21L, User.builder().id(3L).build(), "2024-01-02T00:00:00Z");
+        Post b1 = post(11L, bob, "2024-01-01T00:00:00Z");
+        PostCursor cursor = new PostCursor(Instant.parse("2024-02-01T00:00:00Z"), 99L);
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(timelineService.pulledAuthorIds(1L)).thenReturn(List.of(3L));
+        when(feedMergeEngine.merge(any(), eq(List.of(3L)), eq(cursor), eq(3))).thenAnswer(inv -> {
+            FeedMergeEngine.PostSource timeline = inv.getArgument(0);
+            timeline.fetch(cursor, 3);
+            return List.of(b2, c1, b1);
+        });
+
+        Slice<Post> slice = postService.feedFor(1L, cursor, 2);
+
+        assertThat(slice.getContent()).extracting(Post::getId).containsExactly(12L, 21L);
+        assertThat(slice.hasNext()).isTrue();
+        verify(timelineService).readBefore(1L, List.of(3L), cursor, 3);
+    }
+
+    @Test
+    void feedFor_keyset_throwsNotFound_whenUserMissing() {
+        when(userRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> postService.feedFor(99L, null, 10))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void hydratedFeedFor_resolvesViewsInFeedOrder_withPendingLikes() {
+        Post b2 = post(12L, bob, "2024-01-03T00:00:00Z");
+        Post b1 = post(11L, bob, "2024-01-01T00:00:00Z");
+        PostView v1 = new PostView(11L, 2L, "bob", "t11", "..", b1.getCreatedAt(), 4L, false);
+        PostView v2 = new PostView(12L, 2L, "bob", "t12", "..", b2.getCreatedAt(), 1L, true);
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(feedMergeEngine.merge(any(), eq(List.of()), eq(PostCursor.NEWEST), eq(3))).thenReturn(List.of(b2, b1));
+        when(postRepository.findViewsByIdIn(List.of(12L, 11L), 1L)).thenReturn(List.of(v1, v2));
+        when(likeCounter.pending(12L)).thenReturn(2L);
+        when(likeCounter.pending(11L)).thenReturn(0L);
+
+        Slice<PostView> slice = postService.hydratedFeedFor(1L, null, 2);
+
+        assertThat(slice.getContent()).extracting(PostView::id).containsExactly(12L, 11L);
+        assertThat(slice.getContent()).extracting(PostView::likeCount).containsExactly(3L, 4L);
+        assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    void hydratedFeedFor_skipsViewQuery_whenFeedEmpty() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(feedMergeEngine.merge(any(), eq(List.of()), eq(PostCursor.NEWEST), eq(11))).thenReturn(List.of());
+
+        Slice<PostView> slice = postService.hydratedFeedFor(1L, null, 10);
+
+        assertThat(slice.getContent()).isEmpty();
+        verify(postRepository, never()).findViewsByIdIn(any(), any());
     }
 
     @Test
     void feedFor_throwsNotFound_whenUserMissing() {
-        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(99L)).thenReturn(false);
 
         assertThatThrownBy(() -> postService.feedFor(99L, pageable))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User not found");
-        verify(followRepository, never()).findAllByFollower(any());
-        verify(postRepository, never()).findAllByAuthorIdInOrderByCreatedAtDesc(anyList(), any());
+        verify(timelineService, never()).read(any(), any(), any());
+    }
+
+    private static Post post(Long id, User author, String createdAt) {
+        return Post.builder().id(id).author(author).title("t" + id).body("..").createdAt(Instant.parse(createdAt)).build();
     }
 }
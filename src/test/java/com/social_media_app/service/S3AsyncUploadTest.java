@@ -0,0 +1,114 @@
+package com.social_media_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class S3AsyncUploadTest {
+
+    private static final int PART = 1024;
+
+    private S3AsyncClient s3Async;
+    private SimpleMeterRegistry registry;
+    private S3StorageService service;
+
+    @BeforeEach
+    void setUp() {
+        s3Async = mock(S3AsyncClient.class);
+        registry = new SimpleMeterRegistry();
+        service = new S3StorageService(mock(S3Client.class), s3Async, mock(S3Presigner.class), mock(AwsCredentialsProvider.class), registry,
+                "bucket", 8 * PART, 100L * PART, PART, 100, 300, 24);
+    }
+
+    @Test
+    void smallFile_isSingleAsyncPut() throws Exception {
+        when(s3Async.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        String key = service.uploadAsync("uploads/alex", new byte[PART], "video/mp4").join();
+
+        assertThat(key).startsWith("uploads/alex/");
+        verify(s3Async, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void largeFile_uploadsAllPartsBeforeAnyCompletes_thenCompletesInOrder() throws Exception {
+        when(s3Async.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("u1").build()));
+        // parts stay pending until released, so all three must have been started concurrently
+        List<CompletableFuture<UploadPartResponse>> pending = List.of(new CompletableFuture<>(), new CompletableFuture<>(), new CompletableFuture<>());
+        ArgumentCaptor<UploadPartRequest> partReq = ArgumentCaptor.forClass(UploadPartRequest.class);
+        ArgumentCaptor<AsyncRequestBody> partBody = ArgumentCaptor.forClass(AsyncRequestBody.class);
+        when(s3Async.uploadPart(partReq.capture(), partBody.capture()))
+                .thenReturn(pending.get(0), pending.get(1), pending.get(2));
+        when(s3Async.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        CompletableFuture<String> result = service.uploadAsync("uploads/alex", new byte[2 * PART + 10], "video/mp4");
+
+        assertThat(result).isNotDone();
+        assertThat(partReq.getAllValues()).extracting(UploadPartRequest::partNumber).containsExactly(1, 2, 3);
+        assertThat(partBody.getAllValues()).extracting(b -> b.contentLength().orElseThrow())
+                .containsExactly((long) PART, (long) PART, 10L);
+
+        for (int i = 2; i >= 0; i--) {
+            pending.get(i).complete(UploadPartResponse.builder().eTag("e" + (i + 1)).build());
+        }
+
+        assertThat(result.join()).startsWith("uploads/alex/");
+        verify(s3Async).completeMultipartUpload(argThat((CompleteMultipartUploadRequest r) ->
+                r.uploadId().equals("u1") && r.multipartUpload().parts().stream().map(CompletedPart::eTag).toList()
+                        .equals(List.of("e1", "e2", "e3"))));
+        assertThat(registry.get("s3.upload.part.throughput").summary().count()).isEqualTo(3);
+    }
+
+    @Test
+    void failedPart_abortsUpload_andFailsFuture() throws Exception {
+        when(s3Async.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("u1").build()));
+        when(s3Async.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("e1").build()),
+                        CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        when(s3Async.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+        CompletableFuture<String> result = service.uploadAsync("p", new byte[2 * PART], "video/mp4");
+
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("boom");
+        verify(s3Async, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Async, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+}
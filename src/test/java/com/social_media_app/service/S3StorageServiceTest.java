@@ -1,26 +1,52 @@
 package com.social_media_app.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.net.URL;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,12 +57,16 @@ class S3StorageServiceTest {
     S3Client s3;
     S3Presigner presigner;
     S3StorageService service;
+    SimpleMeterRegistry registry;
 
     @BeforeEach
     void setUp() {
         s3 = mock(S3Client.class);
         presigner = mock(S3Presigner.class);
-        service = new S3StorageService(s3, presigner, "test-bucket");
+        registry = new SimpleMeterRegistry();
+        service = new S3StorageService(s3, mock(S3AsyncClient.class), presigner,
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("id", "secret")), registry,
+                "test-bucket", 8 * 1024 * 1024, 1024L * 1024 * 1024, 5 * 1024 * 1024, 100, 300, 24);
     }
 
     @Test
@@ -75,4 +105,138 @@ class S3StorageServiceTest {
         assertEquals("https://example.com/object?sig=123", url.toString());
         verify(presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
     }
+
+    @Test
+    void presignedUrl_isReusedPerKeyAndTtl_untilSafetyMargin() throws Exception {
+        var presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://example.com/object?sig=1"));
+        when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+
+        service.presignedUrl("a", Duration.ofHours(1));
+        service.presignedUrl("a", Duration.ofHours(1));
+        service.presignedUrl("a", Duration.ofMinutes(30));
+        service.presignedUrl("b", Duration.ofHours(1));
+
+        verify(presigner, times(3)).presignGetObject(any(GetObjectPresignRequest.class));
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "presigned-urls").tag("result", "hit").functionCounter().count());
+        assertEquals(3.0, registry.get("cache.gets").tag("cache", "presigned-urls").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void presignedUrl_withinSafetyMargin_isAlwaysSignedFresh() throws Exception {
+        var presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://example.com/object?sig=1"));
+        when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+
+        service.presignedUrl("a", Duration.ofMinutes(5));
+        service.presignedUrl("a", Duration.ofMinutes(5));
+
+        verify(presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    void presignedUrl_signedWithCredentialsExpiringWithinTheMargin_isNotReused() throws Exception {
+        var presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://example.com/object?sig=1"));
+        when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+        var expiring = AwsSessionCredentials.builder()
+                .accessKeyId("id").secretAccessKey("secret").sessionToken("token")
+                .expirationTime(Instant.now().plus(Duration.ofMinutes(4)))
+                .build();
+        service = new S3StorageService(s3, mock(S3AsyncClient.class), presigner, StaticCredentialsProvider.create(expiring),
+                registry, "test-bucket", 8 * 1024 * 1024, 1024L * 1024 * 1024, 5 * 1024 * 1024, 100, 300, 24);
+
+        service.presignedUrl("a", Duration.ofHours(1));
+        service.presignedUrl("a", Duration.ofHours(1));
+
+        ArgumentCaptor<GetObjectPresignRequest> req = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(presigner, times(2)).presignGetObject(req.capture());
+        var signedWith = req.getValue().getObjectRequest().overrideConfiguration().orElseThrow().credentialsIdentityProvider();
+        assertEquals(expiring, signedWith.orElseThrow().resolveIdentity().join());
+    }
+
+    @Test
+    void presignUpload_upToOnePart_isASinglePutPinnedToTypeAndLength() throws Exception {
+        var presigned = mock(PresignedPutObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://example.com/put"));
+        ArgumentCaptor<PutObjectPresignRequest> req = ArgumentCaptor.forClass(PutObjectPresignRequest.class);
+        when(presigner.presignPutObject(req.capture())).thenReturn(presigned);
+
+        var upload = service.presignUpload("uploads/alex", "image/png", 1000, Duration.ofMinutes(15));
+
+        assertTrue(upload.key().startsWith("uploads/alex/"));
+        assertNull(upload.uploadId());
+        assertEquals(List.of(new URL("https://example.com/put")), upload.urls());
+        assertEquals(upload.key(), req.getValue().putObjectRequest().key());
+        assertEquals("image/png", req.getValue().putObjectRequest().contentType());
+        assertEquals(1000L, req.getValue().putObjectRequest().contentLength());
+        verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void presignUpload_largerThanAPart_startsMultipart_withOneUrlPerPart() throws Exception {
+        when(s3.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("up-1").build());
+        var presigned = mock(PresignedUploadPartRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://example.com/part"));
+        ArgumentCaptor<UploadPartPresignRequest> req = ArgumentCaptor.forClass(UploadPartPresignRequest.class);
+        when(presigner.presignUploadPart(req.capture())).thenReturn(presigned);
+
+        var upload = service.presignUpload("uploads/alex", "video/mp4", 20L * 1024 * 1024, Duration.ofMinutes(15));
+
+        assertEquals("up-1", upload.uploadId());
+        assertEquals(8L * 1024 * 1024, upload.partSize());
+        assertEquals(3, upload.urls().size());
+        assertEquals(List.of(1, 2, 3), req.getAllValues().stream().map(r -> r.uploadPartRequest().partNumber()).toList());
+    }
+
+    @Test
+    void presignUpload_overLimit_isRejected() {
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> service.presignUpload("uploads/alex", "video/mp4", 2L * 1024 * 1024 * 1024, Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void completeMultipart_sendsPartsInOrder() {
+        service.completeMultipart("k", "up-1", List.of(
+                CompletedPart.builder().partNumber(2).eTag("b").build(),
+                CompletedPart.builder().partNumber(1).eTag("a").build()));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> req = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3).completeMultipartUpload(req.capture());
+        assertEquals(List.of("a", "b"), req.getValue().multipartUpload().parts().stream().map(CompletedPart::eTag).toList());
+    }
+
+    @Test
+    void abortStaleUploads_abortsOnlyUploadsOlderThanTheMaxAge() {
+        when(s3.listMultipartUploadsPaginator(any(ListMultipartUploadsRequest.class))).thenCallRealMethod();
+        when(s3.listMultipartUploads(any(ListMultipartUploadsRequest.class))).thenReturn(ListMultipartUploadsResponse.builder()
+                .uploads(MultipartUpload.builder().key("uploads/alex/old").uploadId("up-old")
+                                .initiated(Instant.now().minus(Duration.ofDays(2))).build(),
+                        MultipartUpload.builder().key("uploads/alex/new").uploadId("up-new")
+                                .initiated(Instant.now().minus(Duration.ofMinutes(10))).build())
+                .build());
+
+        assertEquals(1, service.abortStaleUploads());
+
+        ArgumentCaptor<AbortMultipartUploadRequest> req = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3).abortMultipartUpload(req.capture());
+        assertEquals("up-old", req.getValue().uploadId());
+        assertEquals("uploads/alex/old", req.getValue().key());
+    }
+
+    @Test
+    void abortMultipart_alreadyGone_isIgnored() {
+        when(s3.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenThrow(NoSuchUploadException.builder().statusCode(404).build());
+
+        service.abortMultipart("k", "up-1");
+    }
+
+    @Test
+    void head_missingObject_isEmpty() {
+        when(s3.headObject(any(HeadObjectRequest.class))).thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        assertTrue(service.head("k").isEmpty());
+    }
 }
@@ -0,0 +1,101 @@
+package com.social_media_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link S3StorageService#uploadStream} against the in-memory S3 stand-in
+ */
+class S3StreamingUploadTest {
+
+    private static final int PART = 1024;
+
+    private final InMemoryS3Client s3 = new InMemoryS3Client();
+    private final S3StorageService service =
+            new S3StorageService(s3, mock(S3AsyncClient.class), mock(S3Presigner.class), mock(AwsCredentialsProvider.class), new SimpleMeterRegistry(),
+                    "bucket", PART, 10 * PART, PART, 100, 300, 24);
+
+    @Test
+    void smallBody_isSinglePut() throws IOException {
+        byte[] data = bytes(PART - 1);
+
+        String key = service.uploadStream("uploads/alex", new ByteArrayInputStream(data), "image/png");
+
+        assertThat(key).startsWith("uploads/alex/");
+        assertThat(s3.objects.get(key)).isEqualTo(data);
+        assertThat(s3.contentTypes.get(key)).isEqualTo("image/png");
+        assertThat(s3.partSizes).isEmpty();
+    }
+
+    @Test
+    void largeBody_isSplitIntoFixedSizeParts_andReassembled() throws IOException {
+        byte[] data = bytes(3 * PART + 100);
+
+        String key = service.uploadStream("uploads/alex", trickle(data), "video/mp4");
+
+        assertThat(s3.partSizes).containsExactly(PART, PART, PART, 100);
+        assertThat(s3.objects.get(key)).isEqualTo(data);
+        assertThat(s3.uploads).isEmpty();
+    }
+
+    @Test
+    void exactMultipleOfPartSize_hasNoEmptyTrailingPart() throws IOException {
+        byte[] data = bytes(2 * PART);
+
+        String key = service.uploadStream("p", new ByteArrayInputStream(data), "application/octet-stream");
+
+        assertThat(s3.partSizes).containsExactly(PART, PART);
+        assertThat(s3.objects.get(key)).isEqualTo(data);
+    }
+
+    @Test
+    void failedPart_abortsUpload() {
+        s3.failPart = part -> part == 2;
+
+        assertThatThrownBy(() -> service.uploadStream("p", new ByteArrayInputStream(bytes(3 * PART)), "x/y"))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(s3.aborted).hasSize(1);
+        assertThat(s3.uploads).isEmpty();
+        assertThat(s3.objects).isEmpty();
+    }
+
+    @Test
+    void bodyOverLimit_abortsUpload() {
+        assertThatThrownBy(() -> service.uploadStream("p", new ByteArrayInputStream(bytes(11 * PART)), "x/y"))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        assertThat(s3.aborted).hasSize(1);
+        assertThat(s3.partSizes).hasSize(10);
+    }
+
+    private static byte[] bytes(int n) {
+        byte[] b = new byte[n];
+        new Random(n).nextBytes(b);
+        return b;
+    }
+
+    /** Hands out at most 100 bytes per read, like a socket would */
+    private static InputStream trickle(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+    }
+}
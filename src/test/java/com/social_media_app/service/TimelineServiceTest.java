@@ -0,0 +1,187 @@
+package com.social_media_app.service;
+
+import com.social_media_app.model.Post;
+import com.social_media_app.model.User;
+import com.social_media_app.repository.FollowRepository;
+import com.social_media_app.repository.TimelineEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceTest {
+
+    private static final long CELEBRITY_THRESHOLD = 100;
+
+    @Mock
+    private TimelineEntryRepository timelineRepository;
+    @Mock
+    private FollowGraph followGraph;
+    @Mock
+    private FollowRepository followRepository;
+
+    private TimelineService timelineService;
+
+    @BeforeEach
+    void setUp() {
+        timelineService = new TimelineService(timelineRepository, followGraph, followRepository, CELEBRITY_THRESHOLD, 0, 30);
+    }
+
+    @Test
+    void fanOut_pushesByPostId_forRegularAuthor() {
+        when(followGraph.followerCount(1L)).thenReturn((int) CELEBRITY_THRESHOLD - 1);
+        when(timelineRepository.fanOut(100L)).thenReturn(3);
+
+        int pushed = timelineService.fanOut(post(100L, 1L));
+
+        assertThat(pushed).isEqualTo(3);
+    }
+
+    @Test
+    void fanOut_skipsCelebrityAuthor() {
+        when(followGraph.followerCount(1L)).thenReturn((int) CELEBRITY_THRESHOLD);
+
+        assertThat(timelineService.fanOut(post(100L, 1L))).isZero();
+        verify(timelineRepository, never()).fanOut(anyLong());
+    }
+
+    @Test
+    void isCelebrity_nearTheThreshold_recountsInTheDatabase() {
+        var service = new TimelineService(timelineRepository, followGraph, followRepository, CELEBRITY_THRESHOLD, 10, 30);
+        // another instance's follows took author 1 over the threshold; this graph has not seen them yet
+        when(followGraph.followerCount(1L)).thenReturn((int) CELEBRITY_THRESHOLD - 5);
+        when(followRepository.findFollowedIdsHavingFollowersAtLeast(List.of(1L), CELEBRITY_THRESHOLD)).thenReturn(List.of(1L));
+        when(followGraph.followerCount(2L)).thenReturn((int) CELEBRITY_THRESHOLD - 50);
+
+        assertThat(service.isCelebrity(1L)).isTrue();
+        assertThat(service.isCelebrity(2L)).isFalse();
+        verify(followRepository, never()).findFollowedIdsHavingFollowersAtLeast(eq(List.of(2L)), anyLong());
+    }
+
+    @Test
+    void pulledAuthorIds_agreeWithFanOut_nearTheThreshold() {
+        var service = new TimelineService(timelineRepository, followGraph, followRepository, CELEBRITY_THRESHOLD, 10, 30);
+        // author 8 is below the threshold in the graph, at it in the database; 9 is far above, 7 far below
+        when(followGraph.following(1L)).thenReturn(new long[]{7L, 8L, 9L});
+        when(followGraph.followerCount(7L)).thenReturn(1);
+        when(followGraph.followerCount(8L)).thenReturn((int) CELEBRITY_THRESHOLD - 1);
+        when(followGraph.followerCount(9L)).thenReturn((int) CELEBRITY_THRESHOLD * 2);
+        when(followRepository.findFollowedIdsHavingFollowersAtLeast(List.of(8L), CELEBRITY_THRESHOLD)).thenReturn(List.of(8L));
+
+        assertThat(service.fanOut(post(100L, 8L))).isZero();
+        assertThat(service.pulledAuthorIds(1L)).containsExactlyInAnyOrder(8L, 9L);
+    }
+
+    @Test
+    void backfillSince_skipsCelebrityAuthors() {
+        Instant since = Instant.parse("2024-01-01T00:00:00Z");
+        when(followGraph.withFollowersAtLeast(CELEBRITY_THRESHOLD)).thenReturn(List.of(9L));
+        when(timelineRepository.backfillSince(since, List.of(9L))).thenReturn(4);
+
+        assertThat(timelineService.backfillSince(since)).isEqualTo(4);
+    }
+
+    @Test
+    void backfillAndEvict_delegateWithFollowerAsOwner() {
+        when(followGraph.followerCount(2L)).thenReturn(0);
+        when(timelineRepository.backfill(eq(1L), eq(2L), argThat(since ->
+                Duration.between(since, Instant.now()).minusDays(30).abs().toMinutes() < 1))).thenReturn(5);
+        when(timelineRepository.deleteByOwnerIdAndAuthorId(1L, 2L)).thenReturn(5);
+
+        assertThat(timelineService.backfill(1L, 2L)).isEqualTo(5);
+        assertThat(timelineService.evict(1L, 2L)).isEqualTo(5);
+    }
+
+    @Test
+    void evict_takingAuthorBelowThreshold_pushesTheirRecentPosts() {
+        // counted after the delete; the graph, still at the threshold or lagging, is not consulted
+        when(followRepository.countByFollowedId(2L)).thenReturn(CELEBRITY_THRESHOLD - 1);
+
+        timelineService.evict(1L, 2L);
+
+        verify(timelineRepository).backfillAuthor(eq(2L), argThat(since ->
+                Duration.between(since, Instant.now()).minusDays(30).abs().toMinutes() < 1));
+    }
+
+    @Test
+    void evict_awayFromThreshold_onlyDeletes() {
+        when(followRepository.countByFollowedId(2L)).thenReturn(CELEBRITY_THRESHOLD, CELEBRITY_THRESHOLD - 2);
+
+        timelineService.evict(1L, 2L);
+        timelineService.evict(1L, 2L);
+
+        verify(timelineRepository, times(2)).deleteByOwnerIdAndAuthorId(1L, 2L);
+        verify(timelineRepository, never()).backfillAuthor(anyLong(), any());
+    }
+
+    @Test
+    void backfill_skipsCelebrityAuthor() {
+        when(followGraph.followerCount(2L)).thenReturn((int) CELEBRITY_THRESHOLD + 1);
+
+        assertThat(timelineService.backfill(1L, 2L)).isZero();
+        verify(timelineRepository, never()).backfill(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void pulledAuthorIds_usesConfiguredThreshold() {
+        when(followGraph.following(1L)).thenReturn(new long[]{8L, 9L});
+        when(followGraph.followerCount(8L)).thenReturn((int) CELEBRITY_THRESHOLD - 1);
+        when(followGraph.followerCount(9L)).thenReturn((int) CELEBRITY_THRESHOLD);
+
+        assertThat(timelineService.pulledAuthorIds(1L)).containsExactly(9L);
+    }
+
+    @Test
+    void read_returnsTimelinePage() {
+        var pageable = PageRequest.of(0, 10);
+        Post p = Post.builder().id(7L).build();
+        when(timelineRepository.findPostsByOwnerId(1L, pageable)).thenReturn(new PageImpl<>(List.of(p), pageable, 1));
+
+        Page<Post> page = timelineService.read(1L, List.of(), pageable);
+
+        assertThat(page.getContent()).containsExactly(p);
+        verify(timelineRepository).findPostsByOwnerId(1L, pageable);
+    }
+
+    @Test
+    void read_excludesPulledAuthors() {
+        var pageable = PageRequest.of(0, 10);
+        when(timelineRepository.findPostsByOwnerIdExcludingAuthors(1L, List.of(9L), pageable))
+                .thenReturn(Page.empty(pageable));
+
+        assertThat(timelineService.read(1L, List.of(9L), pageable)).isEmpty();
+        verify(timelineRepository, never()).findPostsByOwnerId(anyLong(), org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void count_excludesPulledAuthors() {
+        when(timelineRepository.countByOwnerId(1L)).thenReturn(4L);
+        when(timelineRepository.countByOwnerIdExcludingAuthors(1L, List.of(9L))).thenReturn(3L);
+
+        assertThat(timelineService.count(1L, List.of())).isEqualTo(4L);
+        assertThat(timelineService.count(1L, List.of(9L))).isEqualTo(3L);
+    }
+
+    private static Post post(Long id, Long authorId) {
+        return Post.builder().id(id).author(User.builder().id(authorId).build()).build();
+    }
+}